@@ -0,0 +1,101 @@
+package RateLimiter;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admitting work one unit at a time through {@link RateLimiter#allowRequest()} (batch 1) against admitting
+ * it in batches through {@link RateLimiter#tryAcquire(int)}. Every call is one lock acquisition, or one
+ * CAS for the lock-free bucket, so the primary score is lock traffic; the "units" counter is the work
+ * admitted per microsecond. Limiters are rebuilt every iteration so their limits are never used up.
+ * mvn -P benchmark compile exec:exec -Djmh.main=RateLimiter.BatchAcquireBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BatchAcquireBenchmark {
+    private static final int UNLIMITED = 1_000_000_000;
+
+    @Param({"FixedWindow", "SlidingWindow", "SlidingWindowCounter", "TokenBucket", "LockFreeTokenBucket", "LeakyBucket"})
+    public String limiter;
+
+    @Param({"1", "8", "64"})
+    public int batch;
+
+    private RateLimiter rateLimiter;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Admitted {
+        public long units;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            units = 0;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        rateLimiter = switch (limiter) {
+            case "FixedWindow" -> new FixedWindowRateLimiter(Integer.MAX_VALUE, 1, TimeUnit.HOURS, 0);
+            // a 1ms window keeps the exact log short
+            case "SlidingWindow" -> new SlidingWindowRateLimiter(Integer.MAX_VALUE, 1);
+            case "SlidingWindowCounter" -> new SlidingWindowCounterRateLimiter(Integer.MAX_VALUE, 3_600_000);
+            case "TokenBucket" -> new TokenBucketRateLimiter(UNLIMITED, UNLIMITED);
+            case "LockFreeTokenBucket" -> new LockFreeTokenBucketRateLimiter(UNLIMITED, UNLIMITED);
+            // leaks one slot per nanosecond; reserved slots never reach the executor
+            case "LeakyBucket" -> new LeakyBucketRateLimiter(1 << 20, UNLIMITED, Runnable::run);
+            default -> throw new IllegalArgumentException(limiter);
+        };
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        if (rateLimiter instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Benchmark
+    public boolean acquire(Admitted admitted) {
+        boolean admit = batch == 1 ? rateLimiter.allowRequest() : rateLimiter.tryAcquire(batch);
+        if (admit) {
+            admitted.units += batch;
+        }
+        return admit;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(BatchAcquireBenchmark.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/batch-acquire.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,87 @@
+package RateLimiter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admit latency of a low volume premium tenant while four free-tier threads call allowRequest() in a
+ * tight loop, offering well over 100x its traffic. "shared" puts both behind one token bucket,
+ * "hierarchical" gives premium a guaranteed 10% share. Compare the p99 of the premium method; the
+ * premium think time is the same constant floor in both runs.
+ * mvn -P benchmark compile exec:exec -Djmh.main=RateLimiter.PriorityClassBenchmark
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PriorityClassBenchmark {
+    private static final int RATE = 100_000;
+    private static final long PREMIUM_THINK_TOKENS = 100_000;
+
+    @Param({"shared", "hierarchical"})
+    public String limiter;
+
+    private RateLimiter premium;
+    private RateLimiter free;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        if (limiter.equals("shared")) {
+            premium = free = new LockFreeTokenBucketRateLimiter(RATE / 100, RATE);
+        } else {
+            HierarchicalTokenBucketRateLimiter hierarchical = new HierarchicalTokenBucketRateLimiter(RATE / 100, RATE,
+                    List.of(new PriorityClass("premium", 0.1, 0), new PriorityClass("free", 0.9, 1)));
+            premium = hierarchical.forClass("premium");
+            free = hierarchical.forClass("free");
+        }
+    }
+
+    @Benchmark
+    @Group("noisyNeighbour")
+    @GroupThreads(1)
+    public void premium() throws InterruptedException {
+        Blackhole.consumeCPU(PREMIUM_THINK_TOKENS);
+        premium.acquire(1);
+    }
+
+    @Benchmark
+    @Group("noisyNeighbour")
+    @GroupThreads(4)
+    public boolean free() {
+        return free.allowRequest();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(PriorityClassBenchmark.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/priority-class.json")
+                .build();
+        new Runner(options).run();
+    }
+}
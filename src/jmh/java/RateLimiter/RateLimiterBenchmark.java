@@ -0,0 +1,69 @@
+package RateLimiter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * allowRequest() throughput and latency distribution for every limiter, on the path where requests are
+ * admitted and on the path where the limit is exhausted and they are rejected. Limiters are rebuilt every
+ * iteration so the admit path never runs out of capacity or overflows a counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RateLimiterBenchmark {
+    private static final int UNLIMITED = 1_000_000_000;
+
+    @Param({"FixedWindow", "SlidingWindow", "SlidingWindowCounter", "LeakyBucket", "TokenBucket", "LockFreeTokenBucket"})
+    public String limiter;
+
+    @Param({"admit", "reject"})
+    public String path;
+
+    private RateLimiter rateLimiter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        boolean admit = path.equals("admit");
+        rateLimiter = switch (limiter) {
+            case "FixedWindow" -> new FixedWindowRateLimiter(admit ? Integer.MAX_VALUE : 1, 1, TimeUnit.HOURS, 0);
+            // a 1ms window keeps the exact log short on the admit path
+            case "SlidingWindow" -> new SlidingWindowRateLimiter(admit ? Integer.MAX_VALUE : 1, admit ? 1 : 3_600_000);
+            case "SlidingWindowCounter" -> new SlidingWindowCounterRateLimiter(admit ? Integer.MAX_VALUE : 1, 3_600_000);
+            // admit: leaks 1 per ns, so each 10ms tick empties the bucket; reject: never leaks within the run
+            case "LeakyBucket" -> admit
+                    ? new LeakyBucketRateLimiter(1 << 20, UNLIMITED, Runnable::run)
+                    : new LeakyBucketRateLimiter(1, TimeUnit.HOURS.toMillis(1));
+            case "TokenBucket" -> admit ? new TokenBucketRateLimiter(UNLIMITED, UNLIMITED) : new TokenBucketRateLimiter(1, 1);
+            case "LockFreeTokenBucket" -> admit
+                    ? new LockFreeTokenBucketRateLimiter(UNLIMITED, UNLIMITED)
+                    : new LockFreeTokenBucketRateLimiter(1, 1);
+            default -> throw new IllegalArgumentException(limiter);
+        };
+        if (!admit) {
+            rateLimiter.allowRequest();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws Exception {
+        if (rateLimiter instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Benchmark
+    public boolean allowRequest() {
+        return rateLimiter.allowRequest();
+    }
+}
@@ -0,0 +1,35 @@
+package RateLimiter;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+
+/**
+ * Runs {@link RateLimiterBenchmark} once per thread count and writes one JMH JSON result file per run to
+ * target/jmh, so runs from two commits can be diffed. The SampleTime results carry the p99 latency.
+ * Thread counts can be overridden with -Djmh.threads=1,8
+ */
+public class RateLimiterBenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        for (String threads : System.getProperty("jmh.threads", "1,4,16,64").split(",")) {
+            Options options = new OptionsBuilder()
+                    .include(RateLimiterBenchmark.class.getSimpleName())
+                    .threads(Integer.parseInt(threads.trim()))
+                    .forks(1)
+                    .warmupIterations(3)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(5)
+                    .measurementTime(TimeValue.seconds(1))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh/rate-limiter-threads-" + threads.trim() + ".json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package TaskScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time until {@value #TASKS} tasks that all fall due at once and each block for {@value #BLOCK_MILLIS}ms
+ * have finished: a 200 thread platform pool against a virtual thread per task, uncapped and capped.
+ * mvn -P benchmark compile exec:exec -Djmh.main=TaskScheduler.BlockingTaskBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BlockingTaskBenchmark {
+    private static final int TASKS = 100_000;
+    private static final long BLOCK_MILLIS = 10;
+
+    @Param({"platformPool", "virtual", "virtualCapped"})
+    public String mode;
+
+    private TaskSchedulor scheduler;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        scheduler = switch (mode) {
+            case "platformPool" -> new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.PLATFORM_POOL, 200);
+            case "virtual" -> new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.VIRTUAL_THREADS, 0);
+            case "virtualCapped" -> new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.VIRTUAL_THREADS, 10_000);
+            default -> throw new IllegalArgumentException(mode);
+        };
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public void blockingTasks() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            scheduler.scheduleOnce(() -> {
+                try {
+                    Thread.sleep(BLOCK_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }, 0, TimeUnit.MILLISECONDS);
+        }
+        done.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(BlockingTaskBenchmark.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(1)
+                .measurementIterations(3)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/blocking-tasks.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,73 @@
+package TaskScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link CronExpression#nextFireTime(long)}, walking forward one fire at a time from 2024. The
+ * GC profiler's gc.alloc.rate.norm shows the fixed-offset zone allocating nothing per call.
+ * mvn -P benchmark compile exec:exec -Djmh.main=TaskScheduler.CronBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CronBenchmark {
+    private static final long START = 1_704_067_200_000L;
+    // restart after about ten years so the walk stays in a realistic range
+    private static final long END = START + 10L * 365 * 24 * 3600 * 1000;
+
+    @Param({"*/5 * * * *", "0 9 * * MON-FRI", "0 0 29 2 *"})
+    public String expression;
+
+    @Param({"UTC", "America/New_York"})
+    public String zone;
+
+    private CronExpression cron;
+    private long fireTime;
+
+    @Setup
+    public void setUp() {
+        cron = CronExpression.parse(expression, ZoneId.of(zone));
+        fireTime = START;
+    }
+
+    @Benchmark
+    public long nextFireTime() {
+        long next = cron.nextFireTime(fireTime);
+        fireTime = next < END ? next : START;
+        return next;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(CronBenchmark.class.getSimpleName())
+                .forks(1)
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/cron.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,92 @@
+package TaskScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time for a restarted scheduler to replay a log of {@code tasks} pending one-shot tasks, with 16 byte
+ * payloads and a deadline within the next hour, into each queue engine. The log is written once per
+ * trial; nothing fires during the run, so every iteration replays the same file.
+ * mvn -P benchmark compile exec:exec -Djmh.main=TaskScheduler.RecoveryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecoveryBenchmark {
+    @Param({"heap", "timingWheel"})
+    public String engine;
+
+    @Param({"1000000"})
+    public int tasks;
+
+    private final TaskRegistry registry = new TaskRegistry();
+    private Path file;
+    private DurableTaskSchedulor scheduler;
+
+    @Setup(Level.Trial)
+    public void writeLog() throws IOException {
+        registry.register("noop", payload -> () -> { });
+        file = Files.createTempFile("task-log", ".bin");
+        Files.delete(file);
+        long now = System.currentTimeMillis();
+        try (TaskLog log = new TaskLog(file, 64 << 20)) {
+            for (int i = 0; i < tasks; i++) {
+                byte[] payload = new byte[16];
+                log.appendSchedule(new TaskDescriptor("noop", payload), now + TimeUnit.HOURS.toMillis(1) - i % 3_600_000,
+                        0, false, MissedRunPolicy.CATCH_UP);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteLog() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @TearDown(Level.Iteration)
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public DurableTaskSchedulor recover() throws IOException {
+        TaskQueue queue = engine.equals("heap") ? new HeapTaskQueue() : new TimingWheelTaskQueue(1, TimeUnit.MILLISECONDS);
+        scheduler = new DurableTaskSchedulor(new TaskSchedulor(1, queue), registry, file);
+        return scheduler;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(RecoveryBenchmark.class.getSimpleName())
+                .forks(1)
+                .jvmArgs("-Xmx4g")
+                // the previous iteration's million tasks must not be collected inside the next one
+                .shouldDoGC(true)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/recovery.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,92 @@
+package TaskScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time for {@value #TASKS} short periodic tasks (1ms period) to complete {@value #RUNS} runs in total,
+ * i.e. the dispatch throughput of the central scheduler thread against the sharded work-stealing one.
+ * Run on a machine with at least as many cores as workers.
+ * mvn -P benchmark compile exec:exec -Djmh.main=TaskScheduler.SchedulerThroughputBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SchedulerThroughputBenchmark {
+    private static final int TASKS = 1_000;
+    private static final int RUNS = 200_000;
+
+    @Param({"central", "shardedHash", "shardedSubmitter"})
+    public String mode;
+
+    @Param({"8", "16", "32", "64"})
+    public int workers;
+
+    private final LongAdder runs = new LongAdder();
+    private SchedulerInterface scheduler;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        runs.reset();
+        scheduler = switch (mode) {
+            case "central" -> new TaskSchedulor(workers);
+            case "shardedHash" -> new ShardedTaskSchedulor(workers, ShardPlacement.HASH);
+            case "shardedSubmitter" -> new ShardedTaskSchedulor(workers, ShardPlacement.SUBMITTER);
+            default -> throw new IllegalArgumentException(mode);
+        };
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public long periodicTasks() throws InterruptedException {
+        List<ScheduledTask> tasks = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; i++) {
+            tasks.add(scheduler.scheduleAtFixedRate(() -> {
+                Blackhole.consumeCPU(100);
+                runs.increment();
+            }, 0, TimeUnit.MILLISECONDS, 1));
+        }
+        while (runs.sum() < RUNS) {
+            Thread.sleep(1);
+        }
+        tasks.forEach(ScheduledTask::cancel);
+        return runs.sum();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(SchedulerThroughputBenchmark.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(3)
+                .measurementIterations(10)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/scheduler-throughput.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,80 @@
+package TaskScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the scheduler's queue operations with {@code pending} tasks already queued, spread over the
+ * next hour. "scheduleThenCancel" is the timeout pattern, "scheduleThenFire" a task that is due at once.
+ * The clock is frozen so the pending tasks never fire.
+ * mvn -P benchmark compile exec:exec -Djmh.main=TaskScheduler.TaskQueueBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskQueueBenchmark {
+    private static final long NOW = 1_000_000_000L;
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
+
+    @Param({"heap", "timingWheel"})
+    public String engine;
+
+    @Param({"1000000"})
+    public int pending;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private TaskQueue queue;
+
+    @Setup
+    public void setUp() {
+        queue = engine.equals("heap") ? new HeapTaskQueue() : new TimingWheelTaskQueue(1, TimeUnit.MILLISECONDS, NOW);
+        for (int i = 0; i < pending; i++) {
+            queue.add(new ScheduledTask(() -> { }, NOW + 1 + random.nextLong(HOUR)));
+        }
+    }
+
+    @Benchmark
+    public boolean scheduleThenCancel() {
+        ScheduledTask task = new ScheduledTask(() -> { }, NOW + 1 + random.nextLong(HOUR));
+        queue.add(task);
+        return queue.remove(task);
+    }
+
+    @Benchmark
+    public ScheduledTask scheduleThenFire() {
+        queue.add(new ScheduledTask(() -> { }, NOW));
+        return queue.pollDue(NOW);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(TaskQueueBenchmark.class.getSimpleName())
+                .forks(1)
+                .jvmArgs("-Xmx2g")
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/task-queue.json")
+                .build();
+        new Runner(options).run();
+    }
+}
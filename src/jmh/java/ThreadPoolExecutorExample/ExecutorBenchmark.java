@@ -0,0 +1,106 @@
+package ThreadPoolExecutorExample;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of tiny tasks: {@value #SUBMITTERS} threads each submit {@value #BATCH} empty tasks and wait
+ * for them, on {@value #WORKERS} workers. "classic" is the original locked, logging pool (its logging
+ * goes to a null stream, so only building the messages is counted), "highThroughput" its lock-free
+ * mode, and "juc" a fixed java.util.concurrent.ThreadPoolExecutor on a LinkedBlockingQueue.
+ * Run on a machine with more cores than submitters plus workers.
+ * mvn -P benchmark compile exec:exec -Djmh.main=ThreadPoolExecutorExample.ExecutorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(ExecutorBenchmark.SUBMITTERS)
+public class ExecutorBenchmark {
+    static final int SUBMITTERS = 4;
+    private static final int WORKERS = 4;
+    private static final int BATCH = 1_000;
+    private static final int QUEUE_CAPACITY = 1 << 16;
+
+    @Param({"classic", "highThroughput", "juc"})
+    public String pool;
+
+    private Executor executor;
+    private Runnable shutdown;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        switch (pool) {
+            case "classic", "highThroughput" -> {
+                PoolMode mode = pool.equals("classic") ? PoolMode.CLASSIC : PoolMode.HIGH_THROUGHPUT;
+                ThreadPoolExecutorExample example = new ThreadPoolExecutorExample(WORKERS, WORKERS, QUEUE_CAPACITY, mode);
+                executor = example::execute;
+                shutdown = example::shutdownNow;
+            }
+            case "juc" -> {
+                ExecutorService service = new ThreadPoolExecutor(WORKERS, WORKERS, 0, TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(QUEUE_CAPACITY));
+                executor = service;
+                shutdown = service::shutdownNow;
+            }
+            default -> throw new IllegalArgumentException(pool);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        shutdown.run();
+    }
+
+    /**
+     * One operation is a batch of {@value #BATCH} tasks, so tasks per second is the score times the batch.
+     */
+    @Benchmark
+    public void tinyTasks() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            executor.execute(done::countDown);
+        }
+        done.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(ExecutorBenchmark.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/executor.json")
+                .build();
+        new Runner(options).run();
+    }
+}
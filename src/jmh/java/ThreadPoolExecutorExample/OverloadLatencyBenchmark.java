@@ -0,0 +1,113 @@
+package ThreadPoolExecutorExample;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency of a probe task while a background thread submits at {@code load} times what the pool can
+ * run: {@value #WORKERS} workers whose tasks each wait {@value #SERVICE_MICROS}us, so the pool's
+ * capacity does not depend on the cores. The background load is open loop and ignores rejections.
+ * "queueFull" only rejects once the {@value #QUEUE_CAPACITY} task queue is full, so under overload every
+ * task waits out a full queue. "slo" adds a {@link LatencySloAdmission} with a {@value #SLO_MILLIS}ms
+ * target. A rejected probe retries after {@value #RETRY_MICROS}us, and its time includes the retries.
+ * Compare the p99 at load 0.5 and 2.
+ * mvn -P benchmark compile exec:exec -Djmh.main=ThreadPoolExecutorExample.OverloadLatencyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OverloadLatencyBenchmark {
+    private static final int WORKERS = 2;
+    private static final long SERVICE_MICROS = 1_000;
+    private static final int QUEUE_CAPACITY = 2_000;
+    private static final long SLO_MILLIS = 10;
+    private static final long RETRY_MICROS = 100;
+    private static final Runnable SERVICE = () -> LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(SERVICE_MICROS));
+
+    @Param({"queueFull", "slo"})
+    public String admission;
+
+    @Param({"0.5", "2"})
+    public double load;
+
+    private ThreadPoolExecutorExample pool;
+    private Thread generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ThreadPoolExecutorExample(WORKERS, WORKERS, QUEUE_CAPACITY, PoolMode.HIGH_THROUGHPUT);
+        switch (admission) {
+            case "queueFull" -> { }
+            case "slo" -> pool.setAdmissionPolicy(new LatencySloAdmission(SLO_MILLIS, 10, TimeUnit.MILLISECONDS));
+            default -> throw new IllegalArgumentException(admission);
+        }
+        long interval = (long) (TimeUnit.MICROSECONDS.toNanos(SERVICE_MICROS) / (WORKERS * load));
+        generator = new Thread(() -> {
+            // a fixed schedule, so a late submit is made up for rather than lowering the rate
+            long next = System.nanoTime();
+            while (!Thread.currentThread().isInterrupted()) {
+                pool.trySubmit(SERVICE);
+                next += interval;
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+        }, "OverloadLatencyBenchmark-load");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        generator.interrupt();
+        generator.join();
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public void probe() {
+        while (true) {
+            CompletableFuture<Void> done = pool.trySubmit(SERVICE);
+            if (!done.isCompletedExceptionally()) {
+                done.join();
+                return;
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(RETRY_MICROS));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(OverloadLatencyBenchmark.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(2))
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/overload-latency.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,109 @@
+package ThreadPoolExecutorExample;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fork/join style fan-out: one task splits into two until {@value #DEPTH} levels down, and each of the
+ * 2^{@value #DEPTH} leaves burns a little CPU. "highThroughput" shares one lock-free queue among the
+ * workers, "workStealing" keeps each split on its worker's deque, and "forkJoin" is a ForkJoinPool for
+ * reference. Compare the scores across worker counts to see how each scales; this needs at least as
+ * many cores as the largest worker count.
+ * mvn -P benchmark compile exec:exec -Djmh.main=ThreadPoolExecutorExample.RecursiveFanOutBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecursiveFanOutBenchmark {
+    private static final int DEPTH = 18;
+    // the shared queue fills breadth first, so it has to hold a whole level of the tree
+    private static final int QUEUE_CAPACITY = 1 << (DEPTH + 1);
+
+    @Param({"highThroughput", "workStealing", "forkJoin"})
+    public String pool;
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    private Executor executor;
+    private Runnable shutdown;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (pool) {
+            case "highThroughput", "workStealing" -> {
+                PoolMode mode = pool.equals("highThroughput") ? PoolMode.HIGH_THROUGHPUT : PoolMode.WORK_STEALING;
+                ThreadPoolExecutorExample example = new ThreadPoolExecutorExample(workers, workers, QUEUE_CAPACITY, mode);
+                executor = example::execute;
+                shutdown = example::shutdownNow;
+            }
+            case "forkJoin" -> {
+                ForkJoinPool forkJoinPool = new ForkJoinPool(workers);
+                executor = forkJoinPool;
+                shutdown = forkJoinPool::shutdownNow;
+            }
+            default -> throw new IllegalArgumentException(pool);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        shutdown.run();
+    }
+
+    @Benchmark
+    public void fanOut() throws InterruptedException {
+        CountDownLatch leaves = new CountDownLatch(1 << DEPTH);
+        executor.execute(new Split(executor, DEPTH, leaves));
+        leaves.await();
+    }
+
+    private record Split(Executor executor, int depth, CountDownLatch leaves) implements Runnable {
+        @Override
+        public void run() {
+            if (depth == 0) {
+                Blackhole.consumeCPU(50);
+                leaves.countDown();
+                return;
+            }
+            executor.execute(new Split(executor, depth - 1, leaves));
+            executor.execute(new Split(executor, depth - 1, leaves));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new File("target/jmh").mkdirs();
+        Options options = new OptionsBuilder()
+                .include(RecursiveFanOutBenchmark.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh/recursive-fan-out.json")
+                .build();
+        new Runner(options).run();
+    }
+}
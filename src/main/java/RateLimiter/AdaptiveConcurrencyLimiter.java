@@ -0,0 +1,77 @@
+package RateLimiter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of requests in flight rather than their rate, and moves the limit with the latency
+ * the downstream reports back through {@link #release(long)}. Every admitted permit must be released
+ * exactly once, with the latency of the call it guarded.
+ */
+public class AdaptiveConcurrencyLimiter implements RateLimiter {
+    private final LimitAlgorithm algorithm;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(this::getAvailable);
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimiter(LimitAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        this.limit = algorithm.initialLimit();
+    }
+
+    @Override
+    public boolean allowRequest() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be greater than 0");
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current + permits > limit) {
+                metrics.recordRejected();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + permits)) {
+                metrics.recordAdmitted();
+                return true;
+            }
+        }
+    }
+
+    public void release(long latencyNanos) {
+        release(1, latencyNanos);
+    }
+
+    public void release(int permits, long latencyNanos) {
+        lock.lock();
+        try {
+            // the sample is judged against the load it ran under, so it is taken before the release
+            limit = algorithm.update(limit, inFlight.get(), latencyNanos);
+            inFlight.addAndGet(-permits);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    private long getAvailable() {
+        return Math.max(0, limit - inFlight.get());
+    }
+}
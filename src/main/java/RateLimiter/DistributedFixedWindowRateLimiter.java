@@ -0,0 +1,76 @@
+package RateLimiter;
+
+import RateLimiter.store.RateLimiterStore;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed window limiter whose count lives in a {@link RateLimiterStore}, so every node sharing the store
+ * shares the limit. Windows are aligned to the wall clock so all nodes agree on them. Each node borrows
+ * up to {@code batchSize} permits per store call and serves them locally; permits borrowed but unused
+ * when the window ends are lost, so the limit is never exceeded but may be under-used by up to
+ * {@code batchSize} per node per window.
+ */
+public class DistributedFixedWindowRateLimiter implements RateLimiter {
+    private final RateLimiterStore store;
+    private final String key;
+    private final int limit;
+    private final long windowMillis;
+    private final int batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long localWindow = -1;
+    private long localPermits;
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(() -> localPermits);
+
+    public DistributedFixedWindowRateLimiter(RateLimiterStore store, String key, int limit, long windowSize,
+                                             TimeUnit timeUnit, int batchSize) {
+        if (limit < 1 || windowSize < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("limit, windowSize and batchSize must be greater than 0");
+        }
+        this.store = store;
+        this.key = key;
+        this.limit = limit;
+        this.windowMillis = timeUnit.toMillis(windowSize);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean allowRequest() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        RateLimiter.checkPermits(permits, limit);
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            long window = now / windowMillis;
+            if (window != localWindow) {
+                localWindow = window;
+                localPermits = 0;
+            }
+            if (localPermits < permits) {
+                long borrow = Math.max(permits - localPermits, batchSize);
+                long count = store.incrementAndGet(key, borrow, (window + 1) * windowMillis - now);
+                // only the part of the borrow that fits under the limit is ours
+                localPermits += Math.max(0, borrow - Math.max(0, count - limit));
+            }
+            if (localPermits < permits) {
+                metrics.recordRejected();
+                return false;
+            }
+            localPermits -= permits;
+            metrics.recordAdmitted();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+}
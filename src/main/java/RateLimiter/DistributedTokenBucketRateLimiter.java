@@ -0,0 +1,78 @@
+package RateLimiter;
+
+import RateLimiter.store.RateLimiterStore;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket whose state lives in a {@link RateLimiterStore}: a GCRA theoretical arrival time in
+ * wall-clock microseconds, advanced with compare-and-set. Each node borrows up to {@code batchSize}
+ * tokens per successful CAS and serves them locally, so the store sees one update per batch instead of
+ * one per request.
+ */
+public class DistributedTokenBucketRateLimiter implements RateLimiter {
+    private final RateLimiterStore store;
+    private final String key;
+    private final int capacity;
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final long ttlMillis;
+    private final int batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long localTokens;
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(() -> localTokens);
+
+    public DistributedTokenBucketRateLimiter(RateLimiterStore store, String key, int capacity,
+                                             int refillRatePerSecond, int batchSize) {
+        if (capacity < 1 || refillRatePerSecond < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("capacity, refillRatePerSecond and batchSize must be greater than 0");
+        }
+        this.store = store;
+        this.key = key;
+        this.capacity = capacity;
+        this.emissionInterval = TimeUnit.SECONDS.toMicros(1) / refillRatePerSecond;
+        this.burstTolerance = emissionInterval * capacity;
+        // once the arrival time is this far in the past the bucket is full, the same as an absent key
+        this.ttlMillis = TimeUnit.MICROSECONDS.toMillis(burstTolerance) + 1;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean allowRequest() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        RateLimiter.checkPermits(permits, capacity);
+        lock.lock();
+        try {
+            while (localTokens < permits) {
+                long tat = store.get(key);
+                long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+                long base = Math.max(tat, now);
+                long available = (burstTolerance - (base - now)) / emissionInterval;
+                long needed = permits - localTokens;
+                if (available < needed) {
+                    metrics.recordRejected();
+                    return false;
+                }
+                long borrow = Math.min(Math.max(needed, batchSize), available);
+                if (store.compareAndSet(key, tat, base + borrow * emissionInterval, ttlMillis)) {
+                    localTokens += borrow;
+                }
+            }
+            localTokens -= permits;
+            metrics.recordAdmitted();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+}
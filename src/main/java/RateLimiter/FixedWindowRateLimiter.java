@@ -2,80 +2,213 @@ package RateLimiter;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.Queue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Condition;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Fixed window limiter. {@link #allowRequest()} never blocks; callers that want to wait for the next
+ * window use {@link #acquireAsync()} or {@link #tryAcquire(long, TimeUnit)}. Waiters are futures in a
+ * bounded queue that the window rollover completes, so no thread is parked inside the limiter.
+ */
 @Slf4j
-public class FixedWindowRateLimiter implements RateLimiter {
+public class FixedWindowRateLimiter implements RateLimiter, AutoCloseable {
     private final int windowSize;
     private final TimeUnit timeUnit;
-    private final AtomicInteger count;
+    private final long windowNanos;
     private final int limit;
-    private final AtomicLong windowStart;
+    private final int maxWaiters;
+    private int count;
+    private long windowStart;
     private final ReentrantLock lock = new ReentrantLock();
-    private final Condition awaitCapacity = lock.newCondition();
-    private final Queue<CompletableFuture<Boolean>> waitingQueue = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Waiter> waitingQueue = new ArrayDeque<>();
+    private final Timeout refresh;
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(this::getAvailable, this::getWaitingCount);
+
     public FixedWindowRateLimiter(int limit, int windowSize, TimeUnit timeUnit) {
+        this(limit, windowSize, timeUnit, limit);
+    }
+
+    public FixedWindowRateLimiter(int limit, int windowSize, TimeUnit timeUnit, int maxWaiters) {
+        if (limit < 1 || windowSize < 1 || maxWaiters < 0) {
+            throw new IllegalArgumentException("limit and windowSize must be greater than 0");
+        }
         this.limit = limit;
         this.windowSize = windowSize;
         this.timeUnit = timeUnit;
-        this.count = new AtomicInteger(0);
-        this.windowStart = new AtomicLong(System.currentTimeMillis());
-        ScheduledExecutorService refreshService = new ScheduledThreadPoolExecutor(1);
-        refreshService.scheduleAtFixedRate(this::refreshCounter,this.windowSize,this.windowSize,this.timeUnit);
+        this.windowNanos = timeUnit.toNanos(windowSize);
+        this.maxWaiters = maxWaiters;
+        this.windowStart = System.nanoTime();
+        this.refresh = TimingWheel.shared().scheduleAtFixedRate(this::refreshCounter, this.windowSize, this.windowSize, this.timeUnit);
     }
+
     @Override
     public boolean allowRequest() {
-       try{
-           lock.lock();
-           long now = System.currentTimeMillis();
-           if(now - windowStart.get() > windowSize){
-               refreshCounter();
-           }
-           if(count.get() <= limit){
-               count.incrementAndGet();
-               return true;
-           }
-           CompletableFuture<Boolean> future  = new CompletableFuture<>();
-           waitingQueue.add(future);
-           while(!future.isDone()){
-               awaitCapacity.await();
-           }
-           return future.get();
-
-       } catch (InterruptedException | ExecutionException e) {
-           throw new RuntimeException(e);
-       } finally {
-           lock.unlock();
-       }
+        return tryAcquire(1);
+    }
 
+    @Override
+    public boolean tryAcquire(int permits) {
+        RateLimiter.checkPermits(permits, limit);
+        List<Waiter> granted;
+        boolean allowed;
+        lock.lock();
+        try {
+            granted = rollWindowIfExpired(System.nanoTime());
+            // queued waiters go first, otherwise a steady stream of small requests starves them
+            allowed = waitingQueue.isEmpty() && permits <= limit - count;
+            if (allowed) {
+                count += permits;
+            }
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+        return metrics.record(allowed);
     }
 
-    private void refreshCounter(){
-        System.out.println("Refreshing counter");
-        try{
+    @Override
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void acquire(int permits) throws InterruptedException {
+        try {
+            acquireAsync(permits).get();
+        } catch (ExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    public CompletableFuture<Permit> acquireAsync() {
+        return acquireAsync(1);
+    }
+
+    /**
+     * Returns a permit now if the window has capacity, otherwise a future completed by the window
+     * rollover that grants it. Fails with {@link RateLimitExceededException} when the waiter queue is full.
+     */
+    public CompletableFuture<Permit> acquireAsync(int permits) {
+        RateLimiter.checkPermits(permits, limit);
+        long now = System.nanoTime();
+        List<Waiter> granted;
+        CompletableFuture<Permit> future;
+        lock.lock();
+        try {
+            granted = rollWindowIfExpired(now);
+            if (waitingQueue.isEmpty() && permits <= limit - count) {
+                count += permits;
+                metrics.recordAdmitted();
+                future = CompletableFuture.completedFuture(new Permit(now, now));
+            } else if (waitingQueue.size() < maxWaiters) {
+                future = new CompletableFuture<>();
+                waitingQueue.addLast(new Waiter(future, permits, now));
+                metrics.recordQueued();
+            } else {
+                metrics.recordRejected();
+                future = CompletableFuture.failedFuture(new RateLimitExceededException("Waiting queue is full"));
+            }
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+        return future;
+    }
+
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        CompletableFuture<Permit> future = acquireAsync();
+        try {
+            future.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            // cancel loses to a concurrent grant, in which case the permit is ours
+            if (!future.cancel(false)) {
+                return true;
+            }
             lock.lock();
-            windowStart.set(System.currentTimeMillis());
-            count.set(0);
-            while(!waitingQueue.isEmpty()){
-                CompletableFuture<Boolean> future = waitingQueue.poll();
-                future.complete(true);
-                count.incrementAndGet();
+            try {
+                waitingQueue.removeIf(waiter -> waiter.future() == future);
+            } finally {
+                lock.unlock();
             }
-            awaitCapacity.signalAll();
+            metrics.recordRejected();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    private long getAvailable() {
+        lock.lock();
+        try {
+            return limit - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaitingCount() {
+        lock.lock();
+        try {
+            return waitingQueue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        refresh.cancel();
+    }
 
-        }finally {
+    private void refreshCounter(){
+        List<Waiter> granted;
+        lock.lock();
+        try {
+            granted = rollWindowIfExpired(System.nanoTime());
+        } finally {
             lock.unlock();
         }
+        complete(granted);
+    }
+
+    // callers hold the lock; the granted waiters are completed after it is released
+    private List<Waiter> rollWindowIfExpired(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed < windowNanos) {
+            return List.of();
+        }
+        // windows stay on the scheduler's grid, whichever of the tick or a caller rolls them first
+        windowStart += elapsed - elapsed % windowNanos;
+        count = 0;
+        List<Waiter> granted = new ArrayList<>();
+        while (!waitingQueue.isEmpty() && waitingQueue.peekFirst().permits() <= limit - count) {
+            Waiter waiter = waitingQueue.pollFirst();
+            if (!waiter.future().isDone()) {
+                granted.add(waiter);
+                count += waiter.permits();
+            }
+        }
+        return granted;
+    }
+
+    private void complete(List<Waiter> granted) {
+        long now = System.nanoTime();
+        for (Waiter waiter : granted) {
+            // counted before the caller is woken, so it sees its own admission; the permits were charged
+            // to the window either way, even if a cancel gets in first
+            metrics.recordAdmitted();
+            metrics.recordWait(now - waiter.requestedAt());
+            waiter.future().complete(new Permit(waiter.requestedAt(), now));
+        }
+    }
 
+    private record Waiter(CompletableFuture<Permit> future, int permits, long requestedAt) {
     }
 }
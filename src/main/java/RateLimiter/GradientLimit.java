@@ -0,0 +1,62 @@
+package RateLimiter;
+
+/**
+ * Vegas-style gradient limit. The lowest latency seen recently is taken as the no-load latency; the
+ * ratio {@code minLatency / latency} says how much of the current latency is queueing, and the limit is
+ * scaled by it (never below half) plus a headroom of {@code sqrt(limit)} so it can probe upwards again.
+ * The result is smoothed so a single slow request does not collapse the limit. The no-load latency is
+ * forgotten every {@code resetInterval} samples, so a downstream that got permanently slower is re-learned.
+ */
+public class GradientLimit implements LimitAlgorithm {
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final int resetInterval;
+    private long minLatency = Long.MAX_VALUE;
+    private long nextMinLatency = Long.MAX_VALUE;
+    private int samples;
+    private double limit;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, int resetInterval) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("expected 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (smoothing <= 0 || smoothing > 1 || resetInterval < 1) {
+            throw new IllegalArgumentException("smoothing must be in (0, 1] and resetInterval greater than 0");
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.resetInterval = resetInterval;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int initialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int update(int currentLimit, int inFlight, long latencyNanos) {
+        long latency = Math.max(1, latencyNanos);
+        // the next window's minimum is collected in the background so a reset does not start from nothing
+        nextMinLatency = Math.min(nextMinLatency, latency);
+        if (++samples >= resetInterval) {
+            minLatency = nextMinLatency;
+            nextMinLatency = Long.MAX_VALUE;
+            samples = 0;
+        }
+        minLatency = Math.min(minLatency, latency);
+
+        // an idle limiter learns nothing about the limit from a fast request
+        if (inFlight * 2 < limit && latency <= minLatency) {
+            return currentLimit;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, (double) minLatency / latency));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + newLimit * smoothing));
+        return (int) limit;
+    }
+}
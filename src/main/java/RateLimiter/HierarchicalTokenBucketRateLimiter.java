@@ -0,0 +1,150 @@
+package RateLimiter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Two level token bucket. Every {@link PriorityClass} has its own bucket refilled at its guaranteed
+ * share of the total rate; the parent bucket is refilled at the total rate. A request admitted from its
+ * class bucket is charged to the parent unconditionally, so guaranteed traffic is never blocked by other
+ * classes. A request its class bucket cannot cover may borrow from the parent, which only has tokens
+ * left when some class is not using its share. A class of priority {@code p} must leave
+ * {@code p / (lowest priority + 1)} of the parent's burst untouched when it borrows, so higher priority
+ * classes borrow first.
+ *
+ * <p>Both buckets are GCRA cells like {@link LockFreeTokenBucketRateLimiter}, so admission is a map
+ * lookup and at most two CAS loops, the class cell and then the parent, independent of the number of classes.
+ *
+ * <p>This class takes the class name with every call and is not itself a {@link RateLimiter}; the
+ * per-class limiters returned by {@link #forClass(String)} are.
+ */
+public class HierarchicalTokenBucketRateLimiter {
+    private final int capacity;
+    private final LongSupplier clock;
+    private final Bucket parent;
+    private final Map<String, ClassLimiter> classes = new HashMap<>();
+
+    public HierarchicalTokenBucketRateLimiter(int capacity, int ratePerSecond, List<PriorityClass> priorityClasses) {
+        this(capacity, ratePerSecond, priorityClasses, System::nanoTime);
+    }
+
+    HierarchicalTokenBucketRateLimiter(int capacity, int ratePerSecond, List<PriorityClass> priorityClasses, LongSupplier clock) {
+        if (capacity < 1 || ratePerSecond < 1) {
+            throw new IllegalArgumentException("capacity and ratePerSecond must be greater than 0");
+        }
+        if (priorityClasses.stream().mapToDouble(PriorityClass::share).sum() > 1.0 + 1e-9) {
+            throw new IllegalArgumentException("shares must not add up to more than 1");
+        }
+        this.capacity = capacity;
+        this.clock = clock;
+        long now = clock.getAsLong();
+        this.parent = new Bucket(capacity, ratePerSecond, now);
+        int lowestPriority = priorityClasses.stream().mapToInt(PriorityClass::priority).max().orElse(0);
+        for (PriorityClass priorityClass : priorityClasses) {
+            int classCapacity = Math.max(1, (int) (capacity * priorityClass.share()));
+            double classRate = ratePerSecond * priorityClass.share();
+            long reserve = parent.burstTolerance * priorityClass.priority() / (lowestPriority + 1);
+            if (classes.put(priorityClass.name(), new ClassLimiter(new Bucket(classCapacity, classRate, now), reserve)) != null) {
+                throw new IllegalArgumentException("duplicate priority class " + priorityClass.name());
+            }
+        }
+    }
+
+    public boolean allowRequest(String priorityClass) {
+        return tryAcquire(priorityClass, 1);
+    }
+
+    public boolean tryAcquire(String priorityClass, int permits) {
+        return forClass(priorityClass).tryAcquire(permits);
+    }
+
+    /**
+     * The limiter for one class, for callers that only ever submit traffic of that class.
+     */
+    public RateLimiter forClass(String priorityClass) {
+        ClassLimiter limiter = classes.get(priorityClass);
+        if (limiter == null) {
+            throw new IllegalArgumentException("unknown priority class " + priorityClass);
+        }
+        return limiter;
+    }
+
+    public int availableTokens() {
+        return parent.available(clock.getAsLong());
+    }
+
+    private class ClassLimiter implements RateLimiter {
+        private final Bucket guaranteed;
+        private final long borrowReserve;
+        private final RateLimiterMetrics metrics;
+
+        ClassLimiter(Bucket guaranteed, long borrowReserve) {
+            this.guaranteed = guaranteed;
+            this.borrowReserve = borrowReserve;
+            this.metrics = new RateLimiterMetrics(() -> guaranteed.available(clock.getAsLong()));
+        }
+
+        @Override
+        public boolean allowRequest() {
+            return tryAcquire(1);
+        }
+
+        @Override
+        public boolean tryAcquire(int permits) {
+            RateLimiter.checkPermits(permits, capacity);
+            long now = clock.getAsLong();
+            if (permits <= guaranteed.capacity && guaranteed.tryTake(now, permits, 0)) {
+                parent.take(now, permits);
+                return metrics.record(true);
+            }
+            return metrics.record(parent.tryTake(now, permits, borrowReserve));
+        }
+
+        @Override
+        public RateLimiterMetrics getMetrics() {
+            return metrics;
+        }
+    }
+
+    private static class Bucket {
+        private final int capacity;
+        private final long emissionInterval;
+        private final long burstTolerance;
+        private final AtomicLong theoreticalArrivalTime;
+
+        Bucket(int capacity, double ratePerSecond, long now) {
+            this.capacity = capacity;
+            this.emissionInterval = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+            this.burstTolerance = emissionInterval * capacity;
+            this.theoreticalArrivalTime = new AtomicLong(now);
+        }
+
+        boolean tryTake(long now, int permits, long reserve) {
+            long increment = emissionInterval * permits;
+            while (true) {
+                long tat = theoreticalArrivalTime.get();
+                long newTat = Math.max(tat, now) + increment;
+                if (newTat - now > burstTolerance - reserve) {
+                    return false;
+                }
+                if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
+                    return true;
+                }
+            }
+        }
+
+        // charges the bucket even past its burst; the debt is repaid before anyone can borrow again
+        void take(long now, int permits) {
+            long increment = emissionInterval * permits;
+            theoreticalArrivalTime.accumulateAndGet(now, (tat, time) -> Math.max(tat, time) + increment);
+        }
+
+        int available(long now) {
+            long backlog = Math.max(theoreticalArrivalTime.get(), now) - now;
+            return (int) Math.max(0, (burstTolerance - backlog) / emissionInterval);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package RateLimiter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key rate limiter for large key spaces (API keys, tenants). Each key costs one map node plus a
+ * {@link KeyState} holding a single long, about 56 bytes with compressed oops, and no key owns a thread
+ * or timer: all keys read the same clock and the idle-key sweep of every instance runs on the shared
+ * {@link TimingWheel}. A key is only evicted when its state is indistinguishable from a brand new key, so
+ * eviction never hands out extra permits.
+ */
+public class KeyedRateLimiter<K> implements AutoCloseable {
+    private static final long EVICTED = -1L;
+    private static final long REJECTED = -2L;
+
+    private final KeyedRateLimiterType type;
+    private final int limit;
+    private final long windowNanos;
+    private final long emissionInterval;
+    private final long idleTtlNanos;
+    private final LongSupplier clock;
+    private final long epoch;
+    private final ConcurrentHashMap<K, KeyState> states = new ConcurrentHashMap<>();
+    private final Timeout sweep;
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(() -> -1);
+
+    public KeyedRateLimiter(KeyedRateLimiterType type, int limit, long windowSize, long idleTtl, TimeUnit timeUnit) {
+        this(type, limit, windowSize, idleTtl, timeUnit, System::nanoTime, true);
+    }
+
+    KeyedRateLimiter(KeyedRateLimiterType type, int limit, long windowSize, long idleTtl, TimeUnit timeUnit,
+                     LongSupplier clock, boolean autoSweep) {
+        if (limit < 1 || windowSize < 1 || idleTtl < 1) {
+            throw new IllegalArgumentException("limit, windowSize and idleTtl must be greater than 0");
+        }
+        this.type = type;
+        this.limit = limit;
+        this.windowNanos = timeUnit.toNanos(windowSize);
+        this.emissionInterval = Math.max(1, windowNanos / limit);
+        this.idleTtlNanos = timeUnit.toNanos(idleTtl);
+        this.clock = clock;
+        this.epoch = clock.getAsLong();
+        this.sweep = autoSweep
+                ? TimingWheel.shared().scheduleAtFixedRate(this::evictIdle, idleTtl, idleTtl, timeUnit)
+                : null;
+    }
+
+    public boolean allowRequest(K key) {
+        return tryAcquire(key, 1);
+    }
+
+    public boolean tryAcquire(K key, int permits) {
+        RateLimiter.checkPermits(permits, limit);
+        while (true) {
+            KeyState state = states.computeIfAbsent(key, k -> new KeyState());
+            long now = clock.getAsLong() - epoch;
+            long current = state.value;
+            if (current == EVICTED) {
+                // lost a race with the sweeper, the next lookup installs a fresh state
+                states.remove(key, state);
+                continue;
+            }
+            long next = type == KeyedRateLimiterType.TOKEN_BUCKET
+                    ? nextTokenBucket(current, now, permits)
+                    : nextFixedWindow(current, now, permits);
+            if (next == REJECTED) {
+                metrics.recordRejected();
+                return false;
+            }
+            if (KeyState.VALUE.compareAndSet(state, current, next)) {
+                metrics.recordAdmitted();
+                return true;
+            }
+        }
+    }
+
+    public RateLimiter forKey(K key) {
+        return new RateLimiter() {
+            @Override
+            public boolean allowRequest() {
+                return KeyedRateLimiter.this.tryAcquire(key, 1);
+            }
+
+            @Override
+            public boolean tryAcquire(int permits) {
+                return KeyedRateLimiter.this.tryAcquire(key, permits);
+            }
+
+            @Override
+            public RateLimiterMetrics getMetrics() {
+                return metrics;
+            }
+        };
+    }
+
+    /**
+     * Admitted and rejected counts across all keys; there is no single available-permits figure, so
+     * {@link RateLimiterMetrics#getAvailable()} reads -1.
+     */
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    void evictIdle() {
+        long now = clock.getAsLong() - epoch;
+        states.forEach((key, state) -> {
+            long current = state.value;
+            if (current != EVICTED && isIdle(current, now) && KeyState.VALUE.compareAndSet(state, current, EVICTED)) {
+                states.remove(key, state);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        if (sweep != null) {
+            sweep.cancel();
+        }
+        states.clear();
+    }
+
+    // GCRA: the state is the theoretical arrival time, see LockFreeTokenBucketRateLimiter
+    private long nextTokenBucket(long tat, long now, int permits) {
+        long newTat = Math.max(tat, now) + emissionInterval * permits;
+        return newTat - now > windowNanos ? REJECTED : newTat;
+    }
+
+    // high 32 bits: window index (mod 2^32), low 32 bits: count in that window
+    private long nextFixedWindow(long state, long now, int permits) {
+        long window = (now / windowNanos) & 0xFFFFFFFFL;
+        long count = (state >>> 32) == window ? state & 0xFFFFFFFFL : 0;
+        return count + permits > limit ? REJECTED : (window << 32) | (count + permits);
+    }
+
+    private boolean isIdle(long state, long now) {
+        if (type == KeyedRateLimiterType.TOKEN_BUCKET) {
+            return now - state >= idleTtlNanos;
+        }
+        long currentWindow = now / windowNanos;
+        long windowsAgo = (currentWindow - (state >>> 32)) & 0xFFFFFFFFL;
+        long windowEnd = (currentWindow - windowsAgo + 1) * windowNanos;
+        return windowsAgo > 0 && now - windowEnd >= idleTtlNanos;
+    }
+
+    static final class KeyState {
+        static final AtomicLongFieldUpdater<KeyState> VALUE = AtomicLongFieldUpdater.newUpdater(KeyState.class, "value");
+        volatile long value;
+    }
+}
@@ -0,0 +1,6 @@
+package RateLimiter;
+
+public enum KeyedRateLimiterType {
+    FIXED_WINDOW,
+    TOKEN_BUCKET
+}
@@ -1,76 +1,196 @@
 package RateLimiter;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class LeakyBucketRateLimiter implements RateLimiter {
+/**
+ * Leaky bucket: admitted requests wait in a bounded queue and leak out at a constant rate. Each tick
+ * releases as many requests as the rate allows for the time since the previous tick, so output keeps up
+ * with the configured rate even when ticks are late, and hands them to the executor outside the lock.
+ * <p>
+ * {@link #submit(Callable)} queues real work and returns its result; {@link #allowRequest()} and
+ * {@link #tryAcquire(int)} only reserve slots in the leak, for callers that pace work themselves.
+ */
+public class LeakyBucketRateLimiter implements RateLimiter, AutoCloseable {
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final Runnable RESERVED = () -> {};
+
     private final int size;
-    private final ConcurrentLinkedDeque<Runnable> requestStore = new ConcurrentLinkedDeque<>();
+    private final long nanosPerLeak;
+    private final Executor executor;
+    // ring buffer of queued requests and the time each was queued, for the wait time histogram
+    private final Runnable[] requests;
+    private final long[] enqueuedAt;
+    private int head;
+    private int queued;
     private final ReentrantLock lock = new ReentrantLock();
-    private final Condition notEmpty = lock.newCondition();
-    private final AtomicInteger taskCounter = new AtomicInteger(0);
+    private final Timeout leak;
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(this::getAvailable, this::getQueueSize);
+    private long lastLeak;
+
+    /**
+     * Leaks one request every {@code rate} milliseconds.
+     */
     public LeakyBucketRateLimiter(int size, long rate) {
+        this(size, TimeUnit.MILLISECONDS.toNanos(rate), rate, ForkJoinPool.commonPool());
+    }
+
+    public LeakyBucketRateLimiter(int size, int ratePerSecond, Executor executor) {
+        this(size, TimeUnit.SECONDS.toNanos(1) / checkRate(ratePerSecond),
+                Math.max(DEFAULT_TICK_MILLIS, TimeUnit.SECONDS.toMillis(1) / ratePerSecond), executor);
+    }
+
+    private static int checkRate(int ratePerSecond) {
+        if (ratePerSecond < 1) {
+            throw new IllegalArgumentException("size and rate must be greater than 0");
+        }
+        return ratePerSecond;
+    }
+
+    private LeakyBucketRateLimiter(int size, long nanosPerLeak, long tickMillis, Executor executor) {
+        if (size < 1 || nanosPerLeak < 1) {
+            throw new IllegalArgumentException("size and rate must be greater than 0");
+        }
         this.size = size;
-        ScheduledExecutorService service = new ScheduledThreadPoolExecutor(1);
-        service.scheduleAtFixedRate(() -> {
-            try {
-                executeRequests();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }, rate, rate, TimeUnit.MILLISECONDS);
+        this.requests = new Runnable[size];
+        this.enqueuedAt = new long[size];
+        this.nanosPerLeak = nanosPerLeak;
+        this.executor = executor;
+        this.lastLeak = System.nanoTime();
+        this.leak = TimingWheel.shared().scheduleAtFixedRate(this::executeRequests, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
     }
+
     @Override
     public boolean allowRequest() {
-        try{
-            lock.lock();
-            if(requestStore.size() >= size){
-                System.out.println("Thread: " + Thread.currentThread().getName() + " Queue full. Rejecting Task-"+taskCounter.incrementAndGet()+" Size " + requestStore.size());
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        RateLimiter.checkPermits(permits, size);
+        lock.lock();
+        try {
+            if (queued + permits > size) {
+                metrics.recordRejected();
                 return false;
             }
-            System.out.println("Thread: " + Thread.currentThread().getName() + " Adding new task. Queue size: " + requestStore.size());
-            Runnable r = () -> {
-                System.out.println("Thread: " + Thread.currentThread().getName() + " Running Task-"+taskCounter.incrementAndGet()+" . Queue size: " + requestStore.size());
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-            };
-            notEmpty.signalAll();
-            requestStore.addLast(r);
+            long now = System.nanoTime();
+            for (int i = 0; i < permits; i++) {
+                enqueue(RESERVED, now);
+            }
+            metrics.recordAdmitted();
             return true;
         } finally {
             lock.unlock();
         }
     }
-    private void executeRequests() throws InterruptedException {
-        try{
-            System.out.println("Thread: " + Thread.currentThread().getName() + " Starting Executor ");
-            if(lock.tryLock(1000, TimeUnit.MILLISECONDS)) {
-                while (requestStore.isEmpty()) {
-                    System.out.println("Thread: " + Thread.currentThread().getName() + " Queue empty. Waiting for requests...");
-                    notEmpty.await();
-                }
-                System.out.println("Thread: " + Thread.currentThread().getName() + " Started running task. Queue size: " + requestStore.size());
-                Runnable r = requestStore.removeFirst();
-                r.run();
-                System.out.println("Thread: " + Thread.currentThread().getName() + " Finished Executing Task. Queue size: " + requestStore.size());
-
-            } else{
-                System.out.println("Thread: " + Thread.currentThread().getName() + " Lock Not acquired. Waiting for requests...");
+
+    @Override
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Queues {@code task} to run on the executor when its turn to leak comes. The future fails with
+     * {@link RateLimitExceededException} if the bucket is full.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable request = () -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(task.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        };
+        lock.lock();
+        try {
+            if (queued >= size) {
+                metrics.recordRejected();
+                future.completeExceptionally(new RateLimitExceededException("Bucket is full"));
+            } else {
+                metrics.recordAdmitted();
+                enqueue(request, System.nanoTime());
             }
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    public CompletableFuture<Void> submit(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long getAvailable() {
+        return size - getQueueSize();
+    }
+
+    @Override
+    public void close() {
+        leak.cancel();
+    }
 
-        }finally {
-            if(lock.isHeldByCurrentThread()){
-                lock.unlock();
+    // runs on the shared timing wheel thread: only the dequeue happens under the lock
+    private void executeRequests() {
+        Runnable[] batch;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (queued == 0) {
+                // an idle bucket does not bank leaks for a later burst
+                lastLeak = now;
+                return;
+            }
+            long due = (now - lastLeak) / nanosPerLeak;
+            int count = (int) Math.min(due, queued);
+            if (count == 0) {
+                return;
+            }
+            lastLeak = count == due ? lastLeak + due * nanosPerLeak : now;
+            batch = new Runnable[count];
+            for (int i = 0; i < count; i++) {
+                metrics.recordQueued();
+                metrics.recordWait(now - enqueuedAt[head]);
+                batch[i] = requests[head];
+                requests[head] = null;
+                head = head + 1 == size ? 0 : head + 1;
+            }
+            queued -= count;
+        } finally {
+            lock.unlock();
+        }
+        for (Runnable request : batch) {
+            if (request != RESERVED) {
+                executor.execute(request);
             }
         }
     }
+
+    // callers hold the lock and have checked there is room
+    private void enqueue(Runnable request, long now) {
+        int tail = head + queued < size ? head + queued : head + queued - size;
+        requests[tail] = request;
+        enqueuedAt[tail] = now;
+        queued++;
+    }
 }
@@ -0,0 +1,11 @@
+package RateLimiter;
+
+/**
+ * Computes a new concurrency limit from one completed request. Called with the limiter's lock held, so
+ * implementations may keep plain mutable state.
+ */
+public interface LimitAlgorithm {
+    int initialLimit();
+
+    int update(int currentLimit, int inFlight, long latencyNanos);
+}
@@ -0,0 +1,73 @@
+package RateLimiter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket without a lock. The whole bucket state is a single "theoretical arrival time"
+ * (GCRA): the instant, in nanos, at which the bucket would be full again. A request moves it
+ * forward by one emission interval and is admitted if the result stays within the burst
+ * tolerance, which is one CAS per call.
+ */
+public class LockFreeTokenBucketRateLimiter implements RateLimiter {
+    private final int capacity;
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final AtomicLong theoreticalArrivalTime;
+    private final LongSupplier clock;
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(this::availableTokens);
+
+    public LockFreeTokenBucketRateLimiter(int capacity, int refillRatePerSecond) {
+        this(capacity, refillRatePerSecond, System::nanoTime);
+    }
+
+    LockFreeTokenBucketRateLimiter(int capacity, int refillRatePerSecond, LongSupplier clock) {
+        if (capacity < 1 || refillRatePerSecond < 1) {
+            throw new IllegalArgumentException("capacity and refillRatePerSecond must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.emissionInterval = 1_000_000_000L / refillRatePerSecond;
+        this.burstTolerance = emissionInterval * capacity;
+        this.clock = clock;
+        this.theoreticalArrivalTime = new AtomicLong(clock.getAsLong());
+    }
+
+    @Override
+    public boolean allowRequest() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        RateLimiter.checkPermits(permits, capacity);
+        long now = clock.getAsLong();
+        long increment = emissionInterval * permits;
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            long newTat = Math.max(tat, now) + increment;
+            if (newTat - now > burstTolerance) {
+                metrics.recordRejected();
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
+                metrics.recordAdmitted();
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int availableTokens() {
+        long now = clock.getAsLong();
+        long backlog = Math.max(theoreticalArrivalTime.get(), now) - now;
+        return (int) ((burstTolerance - backlog) / emissionInterval);
+    }
+}
@@ -0,0 +1,10 @@
+package RateLimiter;
+
+/**
+ * A granted permit. Times are {@link System#nanoTime()} readings, so only their difference is meaningful.
+ */
+public record Permit(long requestedAt, long grantedAt) {
+    public long waitTime() {
+        return grantedAt - requestedAt;
+    }
+}
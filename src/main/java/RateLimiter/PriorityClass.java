@@ -0,0 +1,16 @@
+package RateLimiter;
+
+/**
+ * A traffic class of a {@link HierarchicalTokenBucketRateLimiter}: {@code share} is the fraction of the
+ * total rate it is guaranteed, {@code priority} orders classes when they borrow idle capacity, 0 first.
+ */
+public record PriorityClass(String name, double share, int priority) {
+    public PriorityClass {
+        if (share <= 0 || share > 1) {
+            throw new IllegalArgumentException("share must be in (0, 1]");
+        }
+        if (priority < 0) {
+            throw new IllegalArgumentException("priority must not be negative");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package RateLimiter;
+
+public class RateLimitExceededException extends RuntimeException {
+    public RateLimitExceededException() {
+        super("Rate limit exceeded");
+    }
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
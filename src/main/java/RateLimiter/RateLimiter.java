@@ -1,5 +1,40 @@
 package RateLimiter;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 public interface RateLimiter {
     boolean allowRequest();
+
+    /**
+     * Takes {@code permits} in one atomic step: either all of them are granted or none are.
+     */
+    boolean tryAcquire(int permits);
+
+    RateLimiterMetrics getMetrics();
+
+    /**
+     * Blocks until {@code permits} can be taken in one step. Implementations that can be woken by a
+     * refill override this; the default polls with a short park.
+     */
+    default void acquire(int permits) throws InterruptedException {
+        if (tryAcquire(permits)) {
+            return;
+        }
+        long start = System.nanoTime();
+        do {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        } while (!tryAcquire(permits));
+        getMetrics().recordQueued();
+        getMetrics().recordWait(System.nanoTime() - start);
+    }
+
+    static void checkPermits(int permits, int capacity) {
+        if (permits < 1 || permits > capacity) {
+            throw new IllegalArgumentException("permits must be between 1 and " + capacity);
+        }
+    }
 }
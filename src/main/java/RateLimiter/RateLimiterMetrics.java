@@ -0,0 +1,84 @@
+package RateLimiter;
+
+import Timing.WaitTimeHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters and gauges for one limiter. Counters are {@link LongAdder}s, so recording on the hot path
+ * does not contend between threads; gauges are read from the limiter only when asked for.
+ * <ul>
+ *   <li>admitted / rejected: calls that got their permits, and calls that did not (failed polls of a
+ *   blocking {@code acquire} count as rejections too)</li>
+ *   <li>queued: calls that had to wait before being admitted; their wait is in {@link #getWaitTime()}</li>
+ *   <li>available: tokens left, or the unused part of the current window</li>
+ *   <li>queue depth: requests currently waiting</li>
+ * </ul>
+ */
+public class RateLimiterMetrics {
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final WaitTimeHistogram waitTime = new WaitTimeHistogram();
+    private final LongSupplier available;
+    private final LongSupplier queueDepth;
+
+    RateLimiterMetrics(LongSupplier available) {
+        this(available, () -> 0);
+    }
+
+    RateLimiterMetrics(LongSupplier available, LongSupplier queueDepth) {
+        this.available = available;
+        this.queueDepth = queueDepth;
+    }
+
+    void recordAdmitted() {
+        admitted.increment();
+    }
+
+    void recordRejected() {
+        rejected.increment();
+    }
+
+    void recordQueued() {
+        queued.increment();
+    }
+
+    void recordWait(long nanos) {
+        waitTime.record(nanos);
+    }
+
+    boolean record(boolean allowed) {
+        if (allowed) {
+            admitted.increment();
+        } else {
+            rejected.increment();
+        }
+        return allowed;
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    public long getAvailable() {
+        return available.getAsLong();
+    }
+
+    public long getQueueDepth() {
+        return queueDepth.getAsLong();
+    }
+
+    public WaitTimeHistogram getWaitTime() {
+        return waitTime;
+    }
+}
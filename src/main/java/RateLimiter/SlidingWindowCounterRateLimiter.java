@@ -0,0 +1,89 @@
+package RateLimiter;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Sliding window counter: keeps only the count of the current and the previous fixed window and
+ * estimates the rolling count as {@code previous * (unelapsed part of the window) + current}.
+ * Memory is constant and nothing is allocated per call.
+ * <p>
+ * The estimate assumes the previous window's requests were spread evenly. When they were bunched at
+ * its end the estimate is too low and a few extra requests get through (at most the previous count
+ * times the elapsed fraction); when bunched at its start it is too high and requests are rejected early.
+ * Use {@link SlidingWindowRateLimiter} when the limit must be exact.
+ */
+public class SlidingWindowCounterRateLimiter implements RateLimiter {
+
+    private final int limit;
+    private final int windowSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongSupplier clock;
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(this::getAvailable);
+    private long windowStart;
+    private long previousCount;
+    private long currentCount;
+
+    public SlidingWindowCounterRateLimiter(int limit, int windowSize) {
+        this(limit, windowSize, System::currentTimeMillis);
+    }
+
+    SlidingWindowCounterRateLimiter(int limit, int windowSize, LongSupplier clock) {
+        if (limit < 1 || windowSize < 1) {
+            throw new IllegalArgumentException("limit and windowSize must be greater than 0");
+        }
+        this.limit = limit;
+        this.windowSize = windowSize;
+        this.clock = clock;
+        this.windowStart = clock.getAsLong();
+    }
+
+    @Override
+    public boolean allowRequest() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        RateLimiter.checkPermits(permits, limit);
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            long elapsed = now - windowStart;
+            if (elapsed >= windowSize) {
+                long windowsPassed = elapsed / windowSize;
+                previousCount = windowsPassed == 1 ? currentCount : 0;
+                currentCount = 0;
+                windowStart += windowsPassed * windowSize;
+                elapsed -= windowsPassed * windowSize;
+            }
+            // previous * (windowSize - elapsed) / windowSize + current + permits - 1 < limit, kept in integers:
+            // the last permit is admitted on the same terms as a single request
+            if (previousCount * (windowSize - elapsed) + (currentCount + permits - 1) * windowSize < (long) limit * windowSize) {
+                currentCount += permits;
+                metrics.recordAdmitted();
+                return true;
+            }
+            metrics.recordRejected();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    // the window fill as of the last call, without rolling the window
+    private long getAvailable() {
+        lock.lock();
+        try {
+            long elapsed = Math.min(clock.getAsLong() - windowStart, windowSize);
+            return limit - (previousCount * (windowSize - elapsed) / windowSize + currentCount);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
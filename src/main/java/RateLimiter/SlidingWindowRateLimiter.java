@@ -3,7 +3,12 @@ package RateLimiter;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 
+/**
+ * Exact sliding window: keeps one timestamp per admitted request, so memory grows with the limit.
+ * See {@link SlidingWindowCounterRateLimiter} for the constant-memory approximation.
+ */
 public class SlidingWindowRateLimiter implements RateLimiter {
 
     private final int limit;
@@ -11,30 +16,56 @@ public class SlidingWindowRateLimiter implements RateLimiter {
     private final ReentrantLock lock = new ReentrantLock();
     private final AtomicInteger windowCount = new AtomicInteger(0);
     private final ConcurrentLinkedDeque<Long> window = new ConcurrentLinkedDeque<>();
+    private final LongSupplier clock;
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(this::getAvailable);
     public SlidingWindowRateLimiter(int limit, int windowSize) {
+        this(limit, windowSize, System::currentTimeMillis);
+    }
+
+    SlidingWindowRateLimiter(int limit, int windowSize, LongSupplier clock) {
         assert limit > 0;
         assert windowSize > 0;
         this.limit = limit;
         this.windowSize = windowSize;
+        this.clock = clock;
     }
 
     @Override
     public boolean allowRequest() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        RateLimiter.checkPermits(permits, limit);
         try {
             lock.lock();
-            long now = System.currentTimeMillis();
+            long now = clock.getAsLong();
             while(!window.isEmpty() && (now - window.peekFirst() > windowSize)){
                 window.pollFirst();
                 windowCount.decrementAndGet();
             }
-            if (windowCount.get() < limit) {
-                window.addLast(System.currentTimeMillis());
-                windowCount.incrementAndGet();
+            if (windowCount.get() + permits <= limit) {
+                for (int i = 0; i < permits; i++) {
+                    window.addLast(now);
+                }
+                windowCount.addAndGet(permits);
+                metrics.recordAdmitted();
                 return true;
             }
         } finally {
             lock.unlock();
         }
+        metrics.recordRejected();
         return false;
     }
+
+    @Override
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    private long getAvailable() {
+        return limit - windowCount.get();
+    }
 }
@@ -0,0 +1,49 @@
+package RateLimiter;
+
+import Timing.HierarchicalWheel;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Handle for a task registered with a {@link TimingWheel}. Also the wheel's intrusive list node, so
+ * registering and cancelling never allocate beyond this object.
+ */
+public final class Timeout extends HierarchicalWheel.Node<Timeout> {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final TimingWheel wheel;
+    final Runnable task;
+    final long periodNanos;
+    long deadline;
+    private volatile int state = PENDING;
+
+    Timeout(TimingWheel wheel, Runnable task, long deadline, long periodNanos) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadline = deadline;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Cancels the task. Returns false if it already ran (one-shot tasks) or was already cancelled.
+     */
+    public boolean cancel() {
+        if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+            return false;
+        }
+        wheel.cancelled(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    boolean expire() {
+        return periodNanos > 0 ? state == PENDING : STATE.compareAndSet(this, PENDING, EXPIRED);
+    }
+}
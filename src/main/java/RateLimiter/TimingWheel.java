@@ -0,0 +1,140 @@
+package RateLimiter;
+
+import Timing.HierarchicalWheel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel driven by one daemon thread. Limiters register their window rollovers and
+ * leak ticks here instead of each owning a {@code ScheduledThreadPoolExecutor}, so the number of threads
+ * does not grow with the number of limiters.
+ * <p>
+ * The slots are a {@link HierarchicalWheel}. Registering and cancelling are O(1): callers hand the
+ * {@link Timeout} over through lock-free queues and the wheel thread links or unlinks it from its slot. Tasks run on the wheel thread and must be
+ * short; anything slow should be handed to an executor.
+ */
+@Slf4j
+public class TimingWheel {
+    private static final TimingWheel SHARED = new TimingWheel(1, TimeUnit.MILLISECONDS);
+
+    private final long tickNanos;
+    private final long startTime;
+    // owned by the wheel thread
+    private final HierarchicalWheel<Timeout> wheel = new HierarchicalWheel<>();
+    private final Consumer<Timeout> expire = this::expire;
+    private final Queue<Timeout> registrations = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancellations = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean running = true;
+    private volatile Thread worker;
+
+    public TimingWheel(long tickDuration, TimeUnit unit) {
+        if (tickDuration < 1) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startTime = System.nanoTime();
+    }
+
+    public static TimingWheel shared() {
+        return SHARED;
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return register(new Timeout(this, task, System.nanoTime() + unit.toNanos(delay), 0));
+    }
+
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be greater than 0");
+        }
+        return register(new Timeout(this, task, System.nanoTime() + unit.toNanos(initialDelay), unit.toNanos(period)));
+    }
+
+    public void shutdown() {
+        running = false;
+        Thread thread = worker;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private Timeout register(Timeout timeout) {
+        if (!running) {
+            throw new IllegalStateException("TimingWheel is shut down");
+        }
+        registrations.add(timeout);
+        if (started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::run, "timing-wheel");
+            thread.setDaemon(true);
+            worker = thread;
+            thread.start();
+        } else {
+            LockSupport.unpark(worker);
+        }
+        return timeout;
+    }
+
+    void cancelled(Timeout timeout) {
+        cancellations.add(timeout);
+    }
+
+    private void run() {
+        while (running) {
+            processRegistrations();
+            processCancellations();
+            wheel.advanceTo((System.nanoTime() - startTime) / tickNanos, expire);
+            if (wheel.pending() == 0 && registrations.isEmpty()) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, startTime + (wheel.currentTick() + 1) * tickNanos - System.nanoTime());
+            }
+        }
+    }
+
+    private void processRegistrations() {
+        Timeout timeout;
+        while ((timeout = registrations.poll()) != null) {
+            if (!timeout.isCancelled()) {
+                insert(timeout, wheel.currentTick() + 1);
+            }
+        }
+    }
+
+    private void processCancellations() {
+        Timeout timeout;
+        while ((timeout = cancellations.poll()) != null) {
+            wheel.remove(timeout);
+        }
+    }
+
+    private void expire(Timeout timeout) {
+        if (!timeout.expire()) {
+            return;
+        }
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            log.error("Timer task failed", e);
+        }
+        if (timeout.periodNanos > 0 && !timeout.isCancelled()) {
+            timeout.deadline += timeout.periodNanos;
+            insert(timeout, wheel.currentTick() + 1);
+        }
+    }
+
+    private void insert(Timeout timeout, long earliestTick) {
+        // round up so a task never fires before its deadline
+        wheel.insert(timeout, Math.max(earliestTick, ceilDiv(timeout.deadline - startTime, tickNanos)));
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
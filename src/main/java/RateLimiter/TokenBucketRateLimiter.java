@@ -1,12 +1,13 @@
 package RateLimiter;
 import java.util.concurrent.locks.ReentrantLock;
 
-public class TokenBucketRateLimiter {
+public class TokenBucketRateLimiter implements RateLimiter {
     private final int capacity;
     private final int refillRate;
     private int tokens;
     private long lastRefillTimestamp;
     private final ReentrantLock lock = new ReentrantLock();
+    private final RateLimiterMetrics metrics = new RateLimiterMetrics(this::getAvailableTokens);
 
     public TokenBucketRateLimiter(int capacity, int refillRatePerSecond) {
         this.capacity = capacity;
@@ -25,20 +26,44 @@ public class TokenBucketRateLimiter {
         }
     }
 
+    @Override
     public boolean allowRequest() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        RateLimiter.checkPermits(permits, capacity);
         lock.lock();
         try {
             refill();
-            if (tokens > 0) {
-                tokens--;
+            if (tokens >= permits) {
+                tokens -= permits;
+                metrics.recordAdmitted();
                 return true;
             }
+            metrics.recordRejected();
             return false;
         } finally {
             lock.unlock();
         }
     }
 
+    @Override
+    public RateLimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    private long getAvailableTokens() {
+        lock.lock();
+        try {
+            refill();
+            return tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public static void main(String[] args) throws InterruptedException {
         TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(5, 2);
 
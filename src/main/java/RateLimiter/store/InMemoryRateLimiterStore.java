@@ -0,0 +1,48 @@
+package RateLimiter.store;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process {@link RateLimiterStore}, for a single node or as a stand-in for a shared store in tests.
+ */
+public class InMemoryRateLimiterStore implements RateLimiterStore {
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public long get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null || entry.isExpired(System.currentTimeMillis()) ? 0 : entry.value();
+    }
+
+    @Override
+    public boolean compareAndSet(String key, long expect, long update, long ttlMillis) {
+        boolean[] swapped = new boolean[1];
+        entries.compute(key, (k, entry) -> {
+            long now = System.currentTimeMillis();
+            long current = entry == null || entry.isExpired(now) ? 0 : entry.value();
+            if (current != expect) {
+                return entry;
+            }
+            swapped[0] = true;
+            return new Entry(update, now + ttlMillis);
+        });
+        return swapped[0];
+    }
+
+    @Override
+    public long incrementAndGet(String key, long delta, long ttlMillis) {
+        return entries.compute(key, (k, entry) -> {
+            long now = System.currentTimeMillis();
+            if (entry == null || entry.isExpired(now)) {
+                return new Entry(delta, now + ttlMillis);
+            }
+            return new Entry(entry.value() + delta, entry.expiresAt());
+        }).value();
+    }
+
+    private record Entry(long value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package RateLimiter.store;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link RateLimiterStore} in a memory-mapped file, so several JVMs on one host share the same counters.
+ * <p>
+ * The file is a fixed-size open-addressing table. Each slot is five longs: the 64-bit hash of the key,
+ * a second, independently computed 64-bit fingerprint of it, the value, the expiry and a lock word. A key
+ * owns a slot only if both match, so two keys share a counter only if they collide on all 128 bits. Slots
+ * are locked with CAS on the mapped memory, which is atomic across processes, and an empty slot is claimed
+ * under its lock with the hash written last, so a slot with a hash always has its fingerprint. A lock word
+ * holds the process id of its holder. A lock is only taken over once that process has exited, however
+ * long a live holder is paused or stopped, so a crashed process cannot leave a slot locked for good.
+ * Keys are never removed (expired keys read as 0), so the table must be sized for the number of
+ * limiters, not the number of requests.
+ */
+public class MappedFileRateLimiterStore implements RateLimiterStore, AutoCloseable {
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long MAGIC = 0x524C53544F524533L;
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 40;
+    private static final int HASH = 0, FINGERPRINT = 8, VALUE = 16, EXPIRES_AT = 24, LOCK = 32;
+    private static final long PID = ProcessHandle.current().pid();
+    // how often a waiter checks whether the holder of a lock is still alive
+    private static final long HOLDER_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final ToLongFunction<byte[]> hash;
+
+    public MappedFileRateLimiterStore(Path file, int slots) throws IOException {
+        this(file, slots, MappedFileRateLimiterStore::hash);
+    }
+
+    // takes the primary hash so tests can make keys collide on it
+    MappedFileRateLimiterStore(Path file, int slots, ToLongFunction<byte[]> hash) throws IOException {
+        if (Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("slots must be a power of two");
+        }
+        this.hash = hash;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long bytes = HEADER_BYTES + (long) slots * SLOT_BYTES;
+        // the first process to get here sizes and stamps the file, the others find it ready
+        FileLock fileLock = channel.lock();
+        try {
+            if (channel.size() == 0) {
+                channel.truncate(bytes);
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                buffer.putLong(8, slots);
+                LONGS.setVolatile(buffer, 0, MAGIC);
+                this.slots = slots;
+            } else {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if ((long) LONGS.get(header, 0) != MAGIC) {
+                    throw new IOException(file + " is not a rate limiter store");
+                }
+                this.slots = (int) header.getLong(8);
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) this.slots * SLOT_BYTES);
+            }
+        } finally {
+            fileLock.release();
+        }
+    }
+
+    @Override
+    public long get(String key) {
+        int slot = lock(key);
+        try {
+            return current(slot, System.currentTimeMillis());
+        } finally {
+            unlock(slot);
+        }
+    }
+
+    @Override
+    public boolean compareAndSet(String key, long expect, long update, long ttlMillis) {
+        int slot = lock(key);
+        try {
+            long now = System.currentTimeMillis();
+            if (current(slot, now) != expect) {
+                return false;
+            }
+            buffer.putLong(slot + VALUE, update);
+            buffer.putLong(slot + EXPIRES_AT, now + ttlMillis);
+            return true;
+        } finally {
+            unlock(slot);
+        }
+    }
+
+    @Override
+    public long incrementAndGet(String key, long delta, long ttlMillis) {
+        int slot = lock(key);
+        try {
+            long now = System.currentTimeMillis();
+            long value;
+            if (now >= buffer.getLong(slot + EXPIRES_AT)) {
+                value = delta;
+                buffer.putLong(slot + EXPIRES_AT, now + ttlMillis);
+            } else {
+                value = buffer.getLong(slot + VALUE) + delta;
+            }
+            buffer.putLong(slot + VALUE, value);
+            return value;
+        } finally {
+            unlock(slot);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private long current(int slot, long now) {
+        return now >= buffer.getLong(slot + EXPIRES_AT) ? 0 : buffer.getLong(slot + VALUE);
+    }
+
+    // returns the byte offset of the key's slot, with its lock held
+    private int lock(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = this.hash.applyAsLong(bytes);
+        // 0 marks an empty slot
+        hash = hash == 0 ? 1 : hash;
+        long fingerprint = fingerprint(bytes);
+        int mask = slots - 1;
+        for (int i = 0, index = (int) (hash ^ (hash >>> 32)) & mask; i < slots; i++, index = (index + 1) & mask) {
+            int slot = HEADER_BYTES + index * SLOT_BYTES;
+            long existing = (long) LONGS.getVolatile(buffer, slot + HASH);
+            if (existing == 0) {
+                lock(slot);
+                existing = (long) LONGS.getVolatile(buffer, slot + HASH);
+                if (existing == 0) {
+                    buffer.putLong(slot + FINGERPRINT, fingerprint);
+                    LONGS.setVolatile(buffer, slot + HASH, hash);
+                    return slot;
+                }
+                // somebody claimed it first, check whether it was for the same key
+                unlock(slot);
+            }
+            if (existing == hash && buffer.getLong(slot + FINGERPRINT) == fingerprint) {
+                lock(slot);
+                return slot;
+            }
+        }
+        throw new IllegalStateException("Rate limiter store is full");
+    }
+
+    private void lock(int slot) {
+        long checkAt = System.nanoTime() + HOLDER_CHECK_NANOS;
+        while (true) {
+            long holder = (long) LONGS.getVolatile(buffer, slot + LOCK);
+            if (holder == 0) {
+                if (LONGS.compareAndSet(buffer, slot + LOCK, 0L, PID)) {
+                    return;
+                }
+                continue;
+            }
+            // another thread of this process holds it, or a live process: wait however long it takes
+            if (holder != PID && System.nanoTime() - checkAt >= 0) {
+                if (!isAlive(holder) && LONGS.compareAndSet(buffer, slot + LOCK, holder, PID)) {
+                    return;
+                }
+                checkAt = System.nanoTime() + HOLDER_CHECK_NANOS;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static boolean isAlive(long pid) {
+        return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    private void unlock(int slot) {
+        LONGS.setVolatile(buffer, slot + LOCK, 0L);
+    }
+
+    // 64-bit FNV-1a
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // seeded with the length and mixed differently, so it does not collide along with FNV
+    private static long fingerprint(byte[] key) {
+        long fingerprint = key.length * 0x9e3779b97f4a7c15L;
+        for (byte b : key) {
+            fingerprint = (fingerprint ^ (b & 0xff)) * 0xff51afd7ed558ccdL;
+            fingerprint ^= fingerprint >>> 29;
+        }
+        return fingerprint;
+    }
+}
@@ -0,0 +1,23 @@
+package RateLimiter.store;
+
+/**
+ * Shared counter store for limiters that enforce one limit across several processes. Every value has an
+ * expiry; an absent or expired key reads as 0, so callers never need to create or delete keys.
+ * Expiry times are wall-clock milliseconds, the only clock the processes sharing a store agree on.
+ */
+public interface RateLimiterStore {
+
+    long get(String key);
+
+    /**
+     * Sets {@code key} to {@code update} and its expiry to {@code ttlMillis} from now, if its current value
+     * is {@code expect}.
+     */
+    boolean compareAndSet(String key, long expect, long update, long ttlMillis);
+
+    /**
+     * Adds {@code delta} and returns the new value. When the key is absent or expired it starts from 0 and
+     * gets an expiry of {@code ttlMillis} from now; otherwise the existing expiry is kept.
+     */
+    long incrementAndGet(String key, long delta, long ttlMillis);
+}
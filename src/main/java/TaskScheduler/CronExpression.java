@@ -0,0 +1,268 @@
+package TaskScheduler;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+
+/**
+ * A five field cron expression ({@code minute hour day-of-month month day-of-week}) compiled into
+ * bitsets, so {@link #nextFireTime(long)} is a few bit scans over epoch arithmetic and allocates
+ * nothing in a fixed-offset zone.
+ * <p>
+ * Fields take {@code *}, values, ranges, steps and comma lists ({@code 0,30 9-17/2 * JAN-JUN MON-FRI});
+ * months and weekdays also take three letter names, and Sunday is 0 or 7. As in Vixie cron, when both
+ * day-of-month and day-of-week are restricted a day matching either one fires; if either field starts
+ * with {@code *}, such as {@code *}{@code /2}, a day has to match both. {@code @yearly},
+ * {@code @monthly}, {@code @weekly}, {@code @daily} and {@code @hourly} are accepted as shorthands.
+ */
+public final class CronExpression {
+    private static final long MINUTE = 60_000;
+    private static final int MINUTES_PER_DAY = 1440;
+    // the longest a month can be, February counting its leap day
+    private static final int[] MAX_MONTH_LENGTH = {0, 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+    private static final String[] DAYS = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+    // a February 29th can be eight years away, so no valid expression needs more passes than this
+    private static final int MAX_SEARCH = 8 * 12 * 4;
+
+    private final String expression;
+    private final ZoneRules rules;
+    private final boolean fixed;
+    private final long fixedOffset;
+    private final long minutes;
+    private final long hours;
+    private final long months;
+    // matching days of the month, bit d for day d, for each weekday the month can start on
+    private final long[] dayMasks = new long[7];
+
+    private CronExpression(String expression, ZoneId zone) {
+        this.expression = expression;
+        this.rules = zone.getRules();
+        this.fixed = rules.isFixedOffset();
+        this.fixedOffset = fixed ? rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L : 0;
+        String[] fields = expand(expression.trim()).split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("cron expression must have 5 fields: " + expression);
+        }
+        this.minutes = parseField(fields[0], 0, 59, null);
+        this.hours = parseField(fields[1], 0, 23, null);
+        long daysOfMonth = parseField(fields[2], 1, 31, null);
+        this.months = parseField(fields[3], 1, 12, MONTHS);
+        long daysOfWeek = parseField(fields[4], 0, 7, DAYS);
+        if ((daysOfWeek & 1L << 7) != 0) {
+            daysOfWeek = (daysOfWeek | 1) & ~(1L << 7);
+        }
+        // as in Vixie cron, a day field starting with * makes a day match both fields instead of either
+        boolean starDay = fields[2].startsWith("*") || fields[4].startsWith("*");
+        boolean anyDayOfWeek = fields[4].startsWith("*");
+        for (int first = 0; first < 7; first++) {
+            long weekdays = 0;
+            for (int day = 1; day <= 31; day++) {
+                if ((daysOfWeek >>> ((first + day - 1) % 7) & 1) != 0) {
+                    weekdays |= 1L << day;
+                }
+            }
+            dayMasks[first] = starDay ? daysOfMonth & weekdays : daysOfMonth | weekdays;
+        }
+        if (anyDayOfWeek && !fitsSomeMonth(daysOfMonth)) {
+            throw new IllegalArgumentException("cron expression never fires: " + expression);
+        }
+    }
+
+    /**
+     * Parses {@code expression} in the system default time zone.
+     */
+    public static CronExpression parse(String expression) {
+        return parse(expression, ZoneId.systemDefault());
+    }
+
+    public static CronExpression parse(String expression, ZoneId zone) {
+        return new CronExpression(expression, zone);
+    }
+
+    /**
+     * The first fire time strictly after {@code epochMillis}, in epoch millis on a whole minute. A local
+     * time skipped by a daylight saving gap fires as soon as the gap ends; a local time repeated when the
+     * clocks go back fires once, at its first occurrence.
+     */
+    public long nextFireTime(long epochMillis) {
+        long after = epochMillis;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long offset = offsetAt(after);
+            long local = nextLocalMinute(Math.floorDiv(after + offset, MINUTE) + 1) * MINUTE;
+            long fireTime = local - offset;
+            long actual = offsetAt(fireTime);
+            if (actual != offset && offsetAt(local - actual) == actual) {
+                fireTime = local - actual;
+            }
+            if (fireTime > epochMillis) {
+                return fireTime;
+            }
+            after += MINUTE;
+        }
+        throw new IllegalStateException("no fire time after " + epochMillis + " for " + expression);
+    }
+
+    // the first local epoch minute at or after `minute` that matches every field
+    private long nextLocalMinute(long minute) {
+        long days = Math.floorDiv(minute, MINUTES_PER_DAY);
+        int minuteOfDay = (int) (minute - days * MINUTES_PER_DAY);
+        for (int pass = 0; pass < MAX_SEARCH; pass++) {
+            // civil date of the epoch day, after Howard Hinnant's days_from_civil inverse
+            long z = days + 719468;
+            long era = Math.floorDiv(z, 146097);
+            long dayOfEra = z - era * 146097;
+            long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+            long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+            long shiftedMonth = (5 * dayOfYear + 2) / 153;
+            int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+            int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+            long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+            int length = lengthOfMonth(year, month);
+
+            if ((months >>> month & 1) == 0) {
+                long later = months & -1L << (month + 1);
+                int next = later != 0 ? Long.numberOfTrailingZeros(later) : Long.numberOfTrailingZeros(months);
+                days = epochDay(later != 0 ? year : year + 1, next, 1);
+                minuteOfDay = 0;
+                continue;
+            }
+            int firstDayOfWeek = Math.floorMod(days - (day - 1) + 4, 7);
+            long candidates = dayMasks[firstDayOfWeek] & ((1L << (length + 1)) - 2) & -1L << day;
+            if (candidates == 0) {
+                days += length - day + 1;
+                minuteOfDay = 0;
+                continue;
+            }
+            int nextDay = Long.numberOfTrailingZeros(candidates);
+            if (nextDay != day) {
+                days += nextDay - day;
+                minuteOfDay = 0;
+            }
+            int hour = minuteOfDay / 60;
+            long hourCandidates = hours & -1L << hour;
+            if (hourCandidates != 0) {
+                int nextHour = Long.numberOfTrailingZeros(hourCandidates);
+                long minuteCandidates = minutes & -1L << (nextHour == hour ? minuteOfDay % 60 : 0);
+                if (minuteCandidates == 0) {
+                    hourCandidates = hours & -1L << (hour + 1);
+                    nextHour = Long.numberOfTrailingZeros(hourCandidates);
+                    minuteCandidates = minutes;
+                }
+                if (hourCandidates != 0) {
+                    return days * MINUTES_PER_DAY + nextHour * 60L + Long.numberOfTrailingZeros(minuteCandidates);
+                }
+            }
+            days++;
+            minuteOfDay = 0;
+        }
+        throw new IllegalStateException("no match within " + MAX_SEARCH + " months for " + expression);
+    }
+
+    private long offsetAt(long epochMillis) {
+        if (fixed) {
+            return fixedOffset;
+        }
+        return rules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+    }
+
+    private static long epochDay(long year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int lengthOfMonth(long year, int month) {
+        if (month != 2) {
+            return MAX_MONTH_LENGTH[month];
+        }
+        boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+        return leap ? 29 : 28;
+    }
+
+    private boolean fitsSomeMonth(long daysOfMonth) {
+        int firstDay = Long.numberOfTrailingZeros(daysOfMonth);
+        for (int month = 1; month <= 12; month++) {
+            if ((months >>> month & 1) != 0 && firstDay <= MAX_MONTH_LENGTH[month]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String expand(String expression) {
+        return switch (expression.toLowerCase(Locale.ROOT)) {
+            case "@yearly", "@annually" -> "0 0 1 1 *";
+            case "@monthly" -> "0 0 1 * *";
+            case "@weekly" -> "0 0 * * 0";
+            case "@daily", "@midnight" -> "0 0 * * *";
+            case "@hourly" -> "0 * * * *";
+            default -> expression;
+        };
+    }
+
+    private static long parseField(String field, int min, int max, String[] names) {
+        long bits = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            String range = part;
+            if (slash >= 0) {
+                step = parseValue(part.substring(slash + 1), 1, max, null);
+                range = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if (range.equals("*")) {
+                from = min;
+                to = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    from = parseValue(range.substring(0, dash), min, max, names);
+                    to = parseValue(range.substring(dash + 1), min, max, names);
+                } else {
+                    from = parseValue(range, min, max, names);
+                    // "5/15" runs from 5 to the end of the range
+                    to = slash >= 0 ? max : from;
+                }
+                if (from > to) {
+                    throw new IllegalArgumentException("range " + range + " runs backwards");
+                }
+            }
+            for (int value = from; value <= to; value += step) {
+                bits |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static int parseValue(String value, int min, int max, String[] names) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(value)) {
+                    return i + (min == 1 ? 1 : 0);
+                }
+            }
+        }
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid cron value: " + value);
+        }
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException("cron value " + parsed + " outside " + min + "-" + max);
+        }
+        return parsed;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
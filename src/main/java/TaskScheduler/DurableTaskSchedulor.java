@@ -0,0 +1,268 @@
+package TaskScheduler;
+
+import Timing.WaitTimeHistogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a scheduler so tasks scheduled from a {@link TaskDescriptor} survive a restart. Every schedule
+ * and cancel is written to a {@link TaskLog} before it takes effect, and a new instance on the same file
+ * replays the tasks that were still pending into its delegate.
+ * <p>
+ * Delivery is at least once: a one-shot task is only removed from the log after it ran, so a crash while
+ * it runs runs it again. Recovered tasks that are overdue run straight away, except that fixed-rate tasks
+ * resume at their next slot instead of catching up on every run missed while the process was down.
+ * Runnables scheduled through the {@link SchedulerInterface} methods are passed to the delegate as is
+ * and are not persisted. A schedule with invalid arguments is rejected before anything is logged.
+ * <p>
+ * Logged tasks whose name is no longer registered are not recovered but stay in the log, since a later
+ * release may register them again; {@link #getUnrecoveredEntries()} lists them. The log is compacted
+ * on a background thread, so a task finishing never waits for it.
+ */
+public class DurableTaskSchedulor implements SchedulerInterface, AutoCloseable {
+    private static final int INITIAL_LOG_BYTES = 1 << 20;
+
+    private final SchedulerInterface delegate;
+    private final TaskRegistry registry;
+    private final TaskLog log;
+    private final List<TaskLog.Entry> unrecovered = new ArrayList<>();
+    // released when the log wants compacting
+    private final Semaphore compactionRequested = new Semaphore(0);
+    private final Thread compactor;
+    private volatile boolean stopping;
+    private volatile UncheckedIOException compactionFailure;
+
+    public DurableTaskSchedulor(SchedulerInterface delegate, TaskRegistry registry, Path logFile) throws IOException {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.log = new TaskLog(logFile, INITIAL_LOG_BYTES);
+        recover();
+        this.compactor = new Thread(this::compactWhenRequested, "task-log-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    public ScheduledTask scheduleOnce(TaskDescriptor descriptor, long delay, TimeUnit unit) {
+        NamedTask runnable = resolve(descriptor);
+        TaskSpec.once(runnable, delay, unit);
+        long id = log.appendSchedule(descriptor, System.currentTimeMillis() + unit.toMillis(delay), 0, false, MissedRunPolicy.CATCH_UP);
+        return logged(id, () -> delegate.scheduleOnce(removeAfterRun(id, runnable), delay, unit));
+    }
+
+    public ScheduledTask scheduleAtFixedRate(TaskDescriptor descriptor, long delay, TimeUnit unit, long period, MissedRunPolicy missedRunPolicy) {
+        NamedTask runnable = resolve(descriptor);
+        TaskSpec.atFixedRate(runnable, delay, unit, period, missedRunPolicy);
+        long id = log.appendSchedule(descriptor, System.currentTimeMillis() + unit.toMillis(delay), unit.toNanos(period), true, missedRunPolicy);
+        return logged(id, () -> delegate.scheduleAtFixedRate(runnable, delay, unit, period, missedRunPolicy));
+    }
+
+    public ScheduledTask scheduleAtFixedDelay(TaskDescriptor descriptor, long delay, TimeUnit unit, long period) {
+        NamedTask runnable = resolve(descriptor);
+        TaskSpec.atFixedDelay(runnable, delay, unit, period);
+        long id = log.appendSchedule(descriptor, System.currentTimeMillis() + unit.toMillis(delay), unit.toNanos(period), false, MissedRunPolicy.CATCH_UP);
+        return logged(id, () -> delegate.scheduleAtFixedDelay(runnable, delay, unit, period));
+    }
+
+    @Override
+    public ScheduledTask scheduleOnce(Runnable task, long delay, TimeUnit unit) {
+        return delegate.scheduleOnce(task, delay, unit);
+    }
+
+    @Override
+    public ScheduledTask scheduleAtFixedRate(Runnable runnable, long delay, TimeUnit unit, long period) {
+        return delegate.scheduleAtFixedRate(runnable, delay, unit, period);
+    }
+
+    @Override
+    public ScheduledTask scheduleAtFixedRate(Runnable runnable, long delay, TimeUnit unit, long period, MissedRunPolicy missedRunPolicy) {
+        return delegate.scheduleAtFixedRate(runnable, delay, unit, period, missedRunPolicy);
+    }
+
+    @Override
+    public ScheduledTask scheduleAtFixedDelay(Runnable runnable, long delay, TimeUnit unit, long period) {
+        return delegate.scheduleAtFixedDelay(runnable, delay, unit, period);
+    }
+
+    @Override
+    public ScheduledTask scheduleCron(Runnable runnable, CronExpression cron, MissedRunPolicy missedRunPolicy) {
+        return delegate.scheduleCron(runnable, cron, missedRunPolicy);
+    }
+
+    @Override
+    public List<ScheduledTask> scheduleAll(Collection<TaskSpec> specs) {
+        return delegate.scheduleAll(specs);
+    }
+
+    @Override
+    public boolean cancel(ScheduledTask scheduledTask) {
+        if (scheduledTask.durableId != 0) {
+            remove(scheduledTask.durableId);
+        }
+        return delegate.cancel(scheduledTask);
+    }
+
+    @Override
+    public int getQueueSize() {
+        return delegate.getQueueSize();
+    }
+
+    @Override
+    public long getCancelledCount() {
+        return delegate.getCancelledCount();
+    }
+
+    @Override
+    public WaitTimeHistogram getLateness() {
+        return delegate.getLateness();
+    }
+
+    /**
+     * Number of tasks in the log that will run again.
+     */
+    public int getDurableTaskCount() {
+        return log.size();
+    }
+
+    /**
+     * Logged tasks that were not recovered because no task is registered under their name.
+     */
+    public List<TaskLog.Entry> getUnrecoveredEntries() {
+        return List.copyOf(unrecovered);
+    }
+
+    /**
+     * Stops the delegate and closes the log.
+     *
+     * @throws UncheckedIOException if the log could not be closed, or the last background compaction failed;
+     *                              a failed compaction leaves the log uncompacted but intact
+     */
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+        // not interrupted: an interrupt would close the channel of a compaction in progress
+        stopping = true;
+        compactionRequested.release();
+        try {
+            compactor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        UncheckedIOException failure = compactionFailure;
+        try {
+            log.close();
+        } catch (IOException e) {
+            UncheckedIOException closeFailure = new UncheckedIOException("Failed to close task log", e);
+            if (failure != null) {
+                closeFailure.addSuppressed(failure);
+            }
+            throw closeFailure;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    private void recover() {
+        long now = System.currentTimeMillis();
+        List<TaskSpec> specs = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (TaskLog.Entry entry : log.entries()) {
+            if (!registry.contains(entry.descriptor().name())) {
+                unrecovered.add(entry);
+                continue;
+            }
+            NamedTask runnable = resolve(entry.descriptor());
+            long delay = Math.max(0, TimeUnit.MILLISECONDS.toNanos(entry.executionTimeMillis() - now));
+            long period = entry.periodNanos();
+            if (period == 0) {
+                specs.add(TaskSpec.once(removeAfterRun(entry.id(), runnable), delay, TimeUnit.NANOSECONDS));
+            } else if (entry.fixedRate()) {
+                long overdue = TimeUnit.MILLISECONDS.toNanos(now - entry.executionTimeMillis());
+                if (overdue > 0) {
+                    // back on the original grid, at the first slot still ahead
+                    delay = (period - overdue % period) % period;
+                }
+                specs.add(TaskSpec.atFixedRate(runnable, delay, TimeUnit.NANOSECONDS, period, entry.missedRunPolicy()));
+            } else {
+                specs.add(TaskSpec.atFixedDelay(runnable, delay, TimeUnit.NANOSECONDS, period));
+            }
+            ids.add(entry.id());
+        }
+        List<ScheduledTask> scheduledTasks = delegate.scheduleAll(specs);
+        for (int i = 0; i < scheduledTasks.size(); i++) {
+            track(scheduledTasks.get(i), ids.get(i));
+        }
+    }
+
+    // named after the descriptor, so its metrics are reported under the registered task name
+    private NamedTask resolve(TaskDescriptor descriptor) {
+        return new NamedTask(descriptor.name(), registry.resolve(descriptor));
+    }
+
+    private Runnable removeAfterRun(long id, NamedTask runnable) {
+        return new NamedTask(runnable.name(), () -> {
+            try {
+                runnable.run();
+            } finally {
+                remove(id);
+            }
+        });
+    }
+
+    private void remove(long id) {
+        if (log.appendRemove(id)) {
+            compactionRequested.release();
+        }
+    }
+
+    private void compactWhenRequested() {
+        while (!stopping) {
+            compactionRequested.acquireUninterruptibly();
+            if (stopping) {
+                return;
+            }
+            // one pass covers every request made so far
+            compactionRequested.drainPermits();
+            try {
+                if (log.needsCompaction()) {
+                    log.compact();
+                }
+                compactionFailure = null;
+            } catch (UncheckedIOException e) {
+                compactionFailure = e;
+            }
+        }
+    }
+
+    // the arguments were checked by building a TaskSpec before logging; a schedule the delegate still
+    // refuses, e.g. once it is shut down, is taken out of the log again so it is never replayed
+    private ScheduledTask logged(long id, Supplier<ScheduledTask> schedule) {
+        ScheduledTask scheduledTask;
+        try {
+            scheduledTask = schedule.get();
+        } catch (RuntimeException e) {
+            remove(id);
+            throw e;
+        }
+        return track(scheduledTask, id);
+    }
+
+    private ScheduledTask track(ScheduledTask scheduledTask, long id) {
+        scheduledTask.durableId = id;
+        scheduledTask.scheduler = this;
+        return scheduledTask;
+    }
+}
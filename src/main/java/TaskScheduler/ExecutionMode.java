@@ -0,0 +1,8 @@
+package TaskScheduler;
+
+public enum ExecutionMode {
+    // a fixed pool of platform threads; blocking tasks hold a pool thread while they block
+    PLATFORM_POOL,
+    // a new virtual thread per fired task, so blocking tasks do not hold up the others
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,123 @@
+package TaskScheduler;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Binary heap ordered by execution time. Every task carries its index in the heap array, so besides
+ * O(log n) add and poll a cancelled task is removed in O(log n) instead of lingering until it reaches
+ * the head.
+ */
+public class HeapTaskQueue implements TaskQueue {
+    private ScheduledTask[] heap = new ScheduledTask[16];
+    private int size;
+
+    @Override
+    public void add(ScheduledTask task) {
+        ensureCapacity(size + 1);
+        siftUp(size++, task);
+    }
+
+    /**
+     * Adds a batch in O(n + k) by appending it and re-heapifying bottom-up, when that beats k sift-ups.
+     */
+    @Override
+    public void addAll(Collection<ScheduledTask> tasks) {
+        int total = size + tasks.size();
+        ensureCapacity(total);
+        if ((long) tasks.size() * (Integer.SIZE - Integer.numberOfLeadingZeros(total)) < total) {
+            tasks.forEach(this::add);
+            return;
+        }
+        for (ScheduledTask task : tasks) {
+            place(size++, task);
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i, heap[i]);
+        }
+    }
+
+    @Override
+    public boolean remove(ScheduledTask task) {
+        int index = task.heapIndex;
+        if (index < 0 || index >= size || heap[index] != task) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    @Override
+    public ScheduledTask pollDue(long now) {
+        if (size == 0 || heap[0].getExecutionTime() > now) {
+            return null;
+        }
+        ScheduledTask head = heap[0];
+        removeAt(0);
+        return head;
+    }
+
+    @Override
+    public long nextDeadline() {
+        return size == 0 ? Long.MAX_VALUE : heap[0].getExecutionTime();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(capacity, heap.length * 2));
+        }
+    }
+
+    private void removeAt(int index) {
+        ScheduledTask removed = heap[index];
+        removed.heapIndex = -1;
+        ScheduledTask last = heap[--size];
+        heap[size] = null;
+        if (index == size) {
+            return;
+        }
+        siftDown(index, last);
+        if (heap[index] == last) {
+            siftUp(index, last);
+        }
+    }
+
+    private void siftUp(int index, ScheduledTask task) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (task.compareTo(heap[parent]) >= 0) {
+                break;
+            }
+            place(index, heap[parent]);
+            index = parent;
+        }
+        place(index, task);
+    }
+
+    private void siftDown(int index, ScheduledTask task) {
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].compareTo(heap[child]) < 0) {
+                child = right;
+            }
+            if (task.compareTo(heap[child]) <= 0) {
+                break;
+            }
+            place(index, heap[child]);
+            index = child;
+        }
+        place(index, task);
+    }
+
+    private void place(int index, ScheduledTask task) {
+        heap[index] = task;
+        task.heapIndex = index;
+    }
+}
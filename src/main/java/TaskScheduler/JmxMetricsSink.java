@@ -0,0 +1,114 @@
+package TaskScheduler;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Exports a scheduler's metrics as MXBeans on the platform MBean server, under
+ * {@code TaskScheduler:type=Scheduler,name=<scheduler>} and
+ * {@code TaskScheduler:type=Task,scheduler=<scheduler>,name=<task>}. Percentiles are computed when an
+ * attribute is read. The beans are unregistered when the scheduler shuts down, which throws if any of
+ * them could not be.
+ */
+public class JmxMetricsSink implements MetricsSink {
+    private final String schedulerName;
+    private final MBeanServer server;
+    private final List<ObjectName> registered = new CopyOnWriteArrayList<>();
+
+    public JmxMetricsSink(String schedulerName) {
+        this(schedulerName, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsSink(String schedulerName, MBeanServer server) {
+        this.schedulerName = schedulerName;
+        this.server = server;
+    }
+
+    public interface SchedulerMXBean {
+        long getPendingTasks();
+        long getExecutorQueueDepth();
+        int getTaskNames();
+        long getLatenessP99Nanos();
+        long getLatenessMaxNanos();
+    }
+
+    public interface TaskMXBean {
+        long getRuns();
+        long getFailures();
+        long getOverruns();
+        long getLatenessP50Nanos();
+        long getLatenessP99Nanos();
+        long getLatenessMaxNanos();
+        long getDurationP50Nanos();
+        long getDurationP99Nanos();
+        long getDurationMaxNanos();
+    }
+
+    @Override
+    public void register(SchedulerMetrics metrics) {
+        SchedulerMXBean bean = new SchedulerMXBean() {
+            public long getPendingTasks() { return metrics.getPendingTasks(); }
+            public long getExecutorQueueDepth() { return metrics.getExecutorQueueDepth(); }
+            public int getTaskNames() { return metrics.getTasks().size(); }
+            public long getLatenessP99Nanos() { return metrics.getLateness().valueAtPercentile(99); }
+            public long getLatenessMaxNanos() { return metrics.getLateness().getMax(); }
+        };
+        register("type=Scheduler,name=" + ObjectName.quote(schedulerName), new StandardMBean(bean, SchedulerMXBean.class, true));
+    }
+
+    @Override
+    public void register(String taskName, TaskMetrics metrics) {
+        TaskMXBean bean = new TaskMXBean() {
+            public long getRuns() { return metrics.getRuns(); }
+            public long getFailures() { return metrics.getFailures(); }
+            public long getOverruns() { return metrics.getOverruns(); }
+            public long getLatenessP50Nanos() { return metrics.getLateness().valueAtPercentile(50); }
+            public long getLatenessP99Nanos() { return metrics.getLateness().valueAtPercentile(99); }
+            public long getLatenessMaxNanos() { return metrics.getLateness().getMax(); }
+            public long getDurationP50Nanos() { return metrics.getDuration().valueAtPercentile(50); }
+            public long getDurationP99Nanos() { return metrics.getDuration().valueAtPercentile(99); }
+            public long getDurationMaxNanos() { return metrics.getDuration().getMax(); }
+        };
+        register("type=Task,scheduler=" + ObjectName.quote(schedulerName) + ",name=" + ObjectName.quote(taskName),
+                new StandardMBean(bean, TaskMXBean.class, true));
+    }
+
+    /**
+     * Unregisters every bean, carrying on past failures.
+     *
+     * @throws IllegalStateException if some beans could not be unregistered, with each failure suppressed
+     */
+    @Override
+    public void close() {
+        IllegalStateException failure = null;
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                if (failure == null) {
+                    failure = new IllegalStateException("could not unregister every scheduler MBean");
+                }
+                failure.addSuppressed(e);
+            }
+        }
+        registered.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void register(String properties, StandardMBean bean) {
+        try {
+            ObjectName name = new ObjectName("TaskScheduler:" + properties);
+            server.registerMBean(bean, name);
+            registered.add(name);
+        } catch (JMException e) {
+            throw new IllegalStateException("could not register " + properties, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package TaskScheduler;
+
+/**
+ * Where a scheduler publishes its metrics. The metrics are live objects, so a sink registers them once
+ * and reads them whenever it exports; a push-based sink polls them on its own schedule.
+ */
+public interface MetricsSink {
+    // a sink that exports nothing, the metrics are still readable from the scheduler
+    MetricsSink NONE = new MetricsSink() { };
+
+    default void register(SchedulerMetrics metrics) {
+    }
+
+    // called the first time a task name is scheduled
+    default void register(String taskName, TaskMetrics metrics) {
+    }
+
+    // called when the scheduler shuts down
+    default void close() {
+    }
+}
@@ -0,0 +1,8 @@
+package TaskScheduler;
+
+public enum MissedRunPolicy {
+    // run every missed execution back to back until the task is on schedule again
+    CATCH_UP,
+    // drop the missed executions and continue with the next deadline still ahead
+    SKIP
+}
@@ -0,0 +1,27 @@
+package TaskScheduler;
+
+/**
+ * A task with the name its metrics are reported under. Other tasks are named after their class, with a
+ * lambda named after the class it was written in.
+ */
+public record NamedTask(String name, Runnable task) implements Runnable {
+    public NamedTask {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("name must not be empty");
+        }
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+
+    static String nameOf(Runnable task) {
+        if (task instanceof NamedTask namedTask) {
+            return namedTask.name();
+        }
+        String name = task.getClass().getName();
+        int lambda = name.indexOf("$$Lambda");
+        return lambda > 0 ? name.substring(0, lambda) : name;
+    }
+}
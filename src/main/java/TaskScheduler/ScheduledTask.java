@@ -1,17 +1,22 @@
 package TaskScheduler;
 
+import Timing.HierarchicalWheel;
+import Timing.WaitTimeHistogram;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
-public class ScheduledTask implements Comparable<ScheduledTask> {
+/**
+ * A task and its schedule. Execution times are {@link System#nanoTime()} readings and periods are in
+ * nanoseconds, so deadlines are immune to wall clock adjustments. The inherited links put the task in a
+ * {@link TimingWheelTaskQueue} slot and are guarded by the scheduler lock.
+ */
+public class ScheduledTask extends HierarchicalWheel.Node<ScheduledTask> implements Comparable<ScheduledTask> {
     private static AtomicLong sequence = new AtomicLong(0);
     @Getter private final Runnable task;
     @Getter@Setter
-    private boolean cancelled;
+    private volatile boolean cancelled;
     @Getter@Setter
     private long executionTime;
     private final long sequenceNumber;
@@ -19,23 +24,135 @@ public class ScheduledTask implements Comparable<ScheduledTask> {
     private final long period;
     @Getter
     private final boolean fixedRate;
-    public ScheduledTask(Runnable task, long executionTime, long period, boolean fixedRate) {
+    @Getter
+    private final MissedRunPolicy missedRunPolicy;
+    // the calendar schedule of a cron task, null for a one-shot or fixed period task
+    @Getter
+    private final CronExpression cron;
+    // the wall clock time, in epoch millis, of the cron fire planned for executionTime
+    private long fireTime;
+    // only periodic tasks get their own histogram, a one-shot task has a single lateness sample
+    @Getter
+    private final WaitTimeHistogram lateness;
+    // position in HeapTaskQueue's array, -1 when it is not queued there
+    int heapIndex = -1;
+    // the ShardedTaskSchedulor shard whose queue holds the task
+    volatile int shardIndex;
+    // a periodic task whose run was handed out and has not finished; it is out of the queue until then,
+    // so runs never overlap. Guarded by the scheduler's lock
+    boolean inFlight;
+    // the TaskLog id of a task scheduled through DurableTaskSchedulor, 0 for a transient task
+    volatile long durableId;
+    // where a TaskSchedulor records the task's runs, resolved from its name when it is scheduled
+    TaskMetrics metrics;
+    // the scheduler the task was handed to, so cancel() can unlink it from the queue
+    volatile SchedulerInterface scheduler;
+    public ScheduledTask(Runnable task, long executionTime, long period, boolean fixedRate, MissedRunPolicy missedRunPolicy) {
+        this(task, executionTime, period, fixedRate, missedRunPolicy, null, 0);
+    }
+
+    /**
+     * A task fired by {@code cron}, first at {@code fireTime} (epoch millis) which is due at the
+     * {@link System#nanoTime()} reading {@code executionTime}.
+     */
+    public ScheduledTask(Runnable task, long executionTime, CronExpression cron, long fireTime, MissedRunPolicy missedRunPolicy) {
+        this(task, executionTime, 0, true, missedRunPolicy, cron, fireTime);
+    }
+
+    // a cron task whose first fire is the next one after the current wall clock time, `now` being the scheduler's nanoTime
+    static ScheduledTask firstCronFire(Runnable task, CronExpression cron, MissedRunPolicy missedRunPolicy, long now) {
+        long wallTime = System.currentTimeMillis();
+        long fireTime = cron.nextFireTime(wallTime);
+        return new ScheduledTask(task, now + (fireTime - wallTime) * 1_000_000, cron, fireTime, missedRunPolicy);
+    }
+
+    private ScheduledTask(Runnable task, long executionTime, long period, boolean fixedRate, MissedRunPolicy missedRunPolicy,
+                          CronExpression cron, long fireTime) {
         this.task = task;
         this.period = period;
         this.fixedRate = fixedRate;
+        this.missedRunPolicy = missedRunPolicy;
+        this.cron = cron;
+        this.fireTime = fireTime;
+        this.lateness = period > 0 || cron != null ? new WaitTimeHistogram() : null;
         this.cancelled = false;
         this.executionTime = executionTime;
         this.sequenceNumber = sequence.getAndIncrement();
     }
+    public ScheduledTask(Runnable task, long executionTime, long period, boolean fixedRate) {
+        this(task, executionTime, period, fixedRate, MissedRunPolicy.CATCH_UP);
+    }
     public ScheduledTask(Runnable task, long delay, long period) {
-        this(task, System.currentTimeMillis() + delay, period, false);
+        this(task, System.nanoTime() + delay, period, false);
     }
     public ScheduledTask(Runnable task) {
-        this(task, System.currentTimeMillis(), 0);
+        this(task, System.nanoTime(), 0);
     }
     public ScheduledTask(Runnable task, long executionTime) {
-        this(task, executionTime, 0);
+        this(task, executionTime, 0, false);
+    }
+    /**
+     * Cancels the task and removes it from its scheduler's queue right away.
+     *
+     * @return false if the task had already run (one-shot) or been cancelled
+     */
+    public boolean cancel() {
+        SchedulerInterface owner = scheduler;
+        if (owner == null) {
+            boolean wasCancelled = cancelled;
+            cancelled = true;
+            return !wasCancelled;
+        }
+        return owner.cancel(this);
     }
+
+    /**
+     * Whether the task is re-queued after it fires, on a fixed period or a cron schedule.
+     */
+    public boolean isPeriodic() {
+        return period > 0 || cron != null;
+    }
+
+    /**
+     * The next execution time of a periodic task that fell due at {@link #getExecutionTime()} and was
+     * dispatched at {@code now}. Fixed-rate tasks stay on their original grid instead of drifting by
+     * their dispatch latency; fixed-delay tasks count the period from {@code now} until
+     * {@link #runFinished(long)} moves it to the end of the run. A cron task moves on to its next fire
+     * time, so calling this advances its schedule.
+     */
+    long nextExecutionTime(long now) {
+        if (cron != null) {
+            return nextFireTime(now);
+        }
+        if (!fixedRate) {
+            return now + period;
+        }
+        long next = executionTime + period;
+        if (next < now && missedRunPolicy == MissedRunPolicy.SKIP) {
+            next += ((now - next) / period + 1) * period;
+        }
+        return next;
+    }
+
+    // called before a periodic task is re-queued: a fixed-delay task waits its period after the run ended
+    void runFinished(long now) {
+        if (!fixedRate && cron == null) {
+            executionTime = now + period;
+        }
+    }
+
+    // cron fire times are planned in wall clock millis and mapped back onto the nanoTime grid
+    private long nextFireTime(long now) {
+        long next = cron.nextFireTime(fireTime);
+        long deadline = executionTime + (next - fireTime) * 1_000_000;
+        if (deadline < now && missedRunPolicy == MissedRunPolicy.SKIP) {
+            next = cron.nextFireTime(fireTime + (now - executionTime) / 1_000_000);
+            deadline = executionTime + (next - fireTime) * 1_000_000;
+        }
+        fireTime = next;
+        return deadline;
+    }
+
     @Override
     public int compareTo(ScheduledTask o) {
         if (Long.compare(executionTime, o.executionTime) == 0){
@@ -0,0 +1,24 @@
+package TaskScheduler;
+
+import Timing.WaitTimeHistogram;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public interface SchedulerInterface {
+    ScheduledTask scheduleOnce(Runnable task, long delay, TimeUnit unit);
+    // period is in the same unit as delay
+    ScheduledTask scheduleAtFixedRate(Runnable runnable, long delay, TimeUnit unit, long period);
+    ScheduledTask scheduleAtFixedRate(Runnable runnable, long delay, TimeUnit unit, long period, MissedRunPolicy missedRunPolicy);
+    ScheduledTask scheduleAtFixedDelay(Runnable runnable, long delay, TimeUnit unit, long period);
+    // fires at every time matched by the cron expression, starting with the next one from now
+    ScheduledTask scheduleCron(Runnable runnable, CronExpression cron, MissedRunPolicy missedRunPolicy);
+    // schedules a batch at once, returning the tasks in the order of the specs
+    List<ScheduledTask> scheduleAll(Collection<TaskSpec> specs);
+    boolean cancel(ScheduledTask scheduledTask);
+    int getQueueSize();
+    long getCancelledCount();
+    WaitTimeHistogram getLateness();
+    void shutdown();
+}
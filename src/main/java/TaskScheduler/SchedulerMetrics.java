@@ -0,0 +1,61 @@
+package TaskScheduler;
+
+import Timing.WaitTimeHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics for one scheduler: {@link TaskMetrics} per task name, the lateness of all dispatches, and
+ * gauges for the tasks waiting for their time and the runs waiting for an executor thread. Gauges are
+ * read from the scheduler only when asked for.
+ */
+public class SchedulerMetrics {
+    private final Map<String, TaskMetrics> tasks = new ConcurrentHashMap<>();
+    private final WaitTimeHistogram lateness = new WaitTimeHistogram();
+    private final LongSupplier pendingTasks;
+    private final LongSupplier executorQueueDepth;
+    private final MetricsSink sink;
+
+    SchedulerMetrics(LongSupplier pendingTasks, LongSupplier executorQueueDepth, MetricsSink sink) {
+        this.pendingTasks = pendingTasks;
+        this.executorQueueDepth = executorQueueDepth;
+        this.sink = sink;
+    }
+
+    // resolved once when a task is scheduled, so a run records into its TaskMetrics without a lookup
+    TaskMetrics forTask(String name) {
+        TaskMetrics metrics = tasks.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        return tasks.computeIfAbsent(name, key -> {
+            TaskMetrics created = new TaskMetrics();
+            sink.register(key, created);
+            return created;
+        });
+    }
+
+    void recordLateness(TaskMetrics task, long nanos) {
+        lateness.record(nanos);
+        task.recordLateness(nanos);
+    }
+
+    public Map<String, TaskMetrics> getTasks() {
+        return Collections.unmodifiableMap(tasks);
+    }
+
+    public WaitTimeHistogram getLateness() {
+        return lateness;
+    }
+
+    public long getPendingTasks() {
+        return pendingTasks.getAsLong();
+    }
+
+    public long getExecutorQueueDepth() {
+        return executorQueueDepth.getAsLong();
+    }
+}
@@ -0,0 +1,8 @@
+package TaskScheduler;
+
+public enum ShardPlacement {
+    // by the hash of the Runnable, so the same job always lands on the same worker
+    HASH,
+    // by the submitting thread; tasks scheduled from a worker stay on that worker
+    SUBMITTER
+}
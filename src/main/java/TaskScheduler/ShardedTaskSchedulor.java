@@ -0,0 +1,457 @@
+package TaskScheduler;
+
+import Timing.WaitTimeHistogram;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Scheduler without a central thread or lock. Every worker owns a shard: a {@link HeapTaskQueue} with
+ * its own lock, which it polls and runs tasks from directly. A worker whose shard has nothing due steals
+ * due tasks from the other shards, so one busy shard does not hold up tasks while other workers idle.
+ * <p>
+ * Each shard publishes its earliest deadline in a volatile field; idle workers read those to decide
+ * when to wake up and whom to steal from without touching the other shards' locks. A task is only
+ * stolen once it is a millisecond overdue, so idle workers do not all wake for every
+ * deadline and race the owner for tasks it is about to run anyway.
+ * <p>
+ * Runs are recorded in {@link SchedulerMetrics} as on {@link TaskSchedulor}; a task that throws is counted
+ * in its {@link TaskMetrics#getFailures()} and its worker carries on.
+ */
+public class ShardedTaskSchedulor implements SchedulerInterface {
+    private static final long STEAL_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Shard[] shards;
+    private final ShardPlacement placement;
+    private final ThreadLocal<Shard> currentShard = new ThreadLocal<>();
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final SchedulerMetrics metrics;
+    private final MetricsSink sink;
+    private final LongSupplier clock;
+    private volatile boolean running = true;
+
+    public ShardedTaskSchedulor(int workers, ShardPlacement placement) {
+        this(workers, placement, MetricsSink.NONE);
+    }
+
+    /**
+     * @param sink where the per-task and scheduler metrics are exported, e.g. a {@link JmxMetricsSink}
+     */
+    public ShardedTaskSchedulor(int workers, ShardPlacement placement, MetricsSink sink) {
+        this(workers, placement, sink, System::nanoTime);
+    }
+
+    ShardedTaskSchedulor(int workers, ShardPlacement placement, LongSupplier clock) {
+        this(workers, placement, MetricsSink.NONE, clock);
+    }
+
+    ShardedTaskSchedulor(int workers, ShardPlacement placement, MetricsSink sink, LongSupplier clock) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be greater than 0");
+        }
+        this.placement = placement;
+        this.clock = clock;
+        this.sink = sink;
+        // workers run tasks themselves, nothing waits for an executor
+        this.metrics = new SchedulerMetrics(this::getQueueSize, () -> 0, sink);
+        sink.register(metrics);
+        this.shards = new Shard[workers];
+        for (int i = 0; i < workers; i++) {
+            shards[i] = new Shard(i);
+        }
+        for (Shard shard : shards) {
+            shard.worker = new Thread(() -> work(shard), "sharded-scheduler-" + shard.index);
+            shard.worker.setDaemon(true);
+            shard.worker.start();
+        }
+    }
+
+    @Override
+    public ScheduledTask scheduleOnce(Runnable task, long delay, TimeUnit unit) {
+        return submit(task, delay, unit, 0, false, MissedRunPolicy.CATCH_UP);
+    }
+
+    @Override
+    public ScheduledTask scheduleAtFixedRate(Runnable runnable, long delay, TimeUnit unit, long period) {
+        return scheduleAtFixedRate(runnable, delay, unit, period, MissedRunPolicy.CATCH_UP);
+    }
+
+    @Override
+    public ScheduledTask scheduleAtFixedRate(Runnable runnable, long delay, TimeUnit unit, long period, MissedRunPolicy missedRunPolicy) {
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be greater than 0");
+        }
+        return submit(runnable, delay, unit, period, true, missedRunPolicy);
+    }
+
+    @Override
+    public ScheduledTask scheduleAtFixedDelay(Runnable runnable, long delay, TimeUnit unit, long period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be greater than 0");
+        }
+        return submit(runnable, delay, unit, period, false, MissedRunPolicy.CATCH_UP);
+    }
+
+    @Override
+    public ScheduledTask scheduleCron(Runnable runnable, CronExpression cron, MissedRunPolicy missedRunPolicy) {
+        if (!running) {
+            throw new IllegalStateException("scheduler is shut down");
+        }
+        ScheduledTask scheduledTask = ScheduledTask.firstCronFire(runnable, cron, missedRunPolicy, clock.getAsLong());
+        scheduledTask.scheduler = this;
+        add(place(scheduledTask), List.of(scheduledTask));
+        return scheduledTask;
+    }
+
+    @Override
+    public boolean cancel(ScheduledTask scheduledTask) {
+        // a task stays on the shard it was added to, a stolen periodic task is re-queued there too
+        Shard shard = shards[scheduledTask.shardIndex];
+        shard.lock.lock();
+        try {
+            boolean wasCancelled = scheduledTask.isCancelled();
+            scheduledTask.setCancelled(true);
+            // a running periodic task counts as scheduled, it is just not re-queued when the run ends
+            if (!shard.tasks.remove(scheduledTask) && (wasCancelled || !scheduledTask.inFlight)) {
+                return false;
+            }
+            shard.publishDeadline();
+            cancelledCount.incrementAndGet();
+            return true;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    // queued tasks, and periodic tasks whose run is in progress
+    @Override
+    public int getQueueSize() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.tasks.size() + shard.inFlight;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    @Override
+    public WaitTimeHistogram getLateness() {
+        return metrics.getLateness();
+    }
+
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        for (Shard shard : shards) {
+            shard.signal();
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.worker.join(5000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.close();
+    }
+
+    private ScheduledTask submit(Runnable runnable, long delay, TimeUnit unit, long period, boolean fixedRate, MissedRunPolicy missedRunPolicy) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("delay must be greater than 0");
+        }
+        if (!running) {
+            throw new IllegalStateException("scheduler is shut down");
+        }
+        long executionTime = clock.getAsLong() + unit.toNanos(delay);
+        ScheduledTask scheduledTask = new ScheduledTask(runnable, executionTime, unit.toNanos(period), fixedRate, missedRunPolicy);
+        scheduledTask.scheduler = this;
+        add(place(scheduledTask), List.of(scheduledTask));
+        return scheduledTask;
+    }
+
+    @Override
+    public List<ScheduledTask> scheduleAll(Collection<TaskSpec> specs) {
+        if (!running) {
+            throw new IllegalStateException("scheduler is shut down");
+        }
+        long now = clock.getAsLong();
+        List<ScheduledTask> scheduledTasks = new ArrayList<>(specs.size());
+        List<List<ScheduledTask>> byShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (TaskSpec spec : specs) {
+            ScheduledTask scheduledTask = spec.toScheduledTask(now);
+            scheduledTask.scheduler = this;
+            scheduledTasks.add(scheduledTask);
+            byShard.get(place(scheduledTask).index).add(scheduledTask);
+        }
+        for (int i = 0; i < shards.length; i++) {
+            if (!byShard.get(i).isEmpty()) {
+                add(shards[i], byShard.get(i));
+            }
+        }
+        return scheduledTasks;
+    }
+
+    private Shard place(ScheduledTask scheduledTask) {
+        Shard own = currentShard.get();
+        if (placement == ShardPlacement.SUBMITTER) {
+            return own != null ? own : shards[spread(Thread.currentThread().threadId())];
+        }
+        return shards[spread(scheduledTask.getTask().hashCode())];
+    }
+
+    private int spread(long hash) {
+        hash ^= hash >>> 16;
+        return (int) Math.floorMod(hash * 0x9E3779B97F4A7C15L, (long) shards.length);
+    }
+
+    private void add(Shard shard, List<ScheduledTask> scheduledTasks) {
+        for (ScheduledTask scheduledTask : scheduledTasks) {
+            scheduledTask.metrics = metrics.forTask(NamedTask.nameOf(scheduledTask.getTask()));
+        }
+        boolean ownerBusy;
+        shard.lock.lock();
+        try {
+            for (ScheduledTask scheduledTask : scheduledTasks) {
+                scheduledTask.shardIndex = shard.index;
+            }
+            shard.tasks.addAll(scheduledTasks);
+            ownerBusy = published(shard);
+        } finally {
+            shard.lock.unlock();
+        }
+        if (ownerBusy) {
+            handOff(shard);
+        }
+    }
+
+    // puts a periodic task back on its shard once its run is over, unless it was cancelled meanwhile
+    private void requeue(ScheduledTask scheduledTask) {
+        Shard shard = shards[scheduledTask.shardIndex];
+        boolean ownerBusy;
+        shard.lock.lock();
+        try {
+            if (!scheduledTask.inFlight) {
+                // cancelled before it was taken, it never left the queue as a run
+                return;
+            }
+            scheduledTask.inFlight = false;
+            shard.inFlight--;
+            if (scheduledTask.isCancelled()) {
+                return;
+            }
+            scheduledTask.runFinished(clock.getAsLong());
+            shard.tasks.add(scheduledTask);
+            ownerBusy = published(shard);
+        } finally {
+            shard.lock.unlock();
+        }
+        if (ownerBusy) {
+            handOff(shard);
+        }
+    }
+
+    /**
+     * Publishes the deadline of a shard whose lock is held after tasks were added to it, waking its owner
+     * if it idles and the head moved up. Returns true if the head moved up while the owner is busy.
+     */
+    private boolean published(Shard shard) {
+        boolean newHead = shard.tasks.nextDeadline() < shard.nextDeadline;
+        shard.publishDeadline();
+        if (newHead && shard.idle) {
+            shard.workAvailable.signal();
+            return false;
+        }
+        return newHead;
+    }
+
+    private void handOff(Shard shard) {
+        if (currentShard.get() != shard) {
+            // the owner is busy running a task: hand the earlier deadline to an idle worker instead
+            for (int i = 1; i < shards.length; i++) {
+                Shard other = shards[(shard.index + i) % shards.length];
+                if (other.idle) {
+                    other.signal();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void work(Shard own) {
+        currentShard.set(own);
+        while (running) {
+            long now = clock.getAsLong();
+            ScheduledTask scheduledTask = null;
+            if (own.nextDeadline <= now) {
+                own.lock.lock();
+                try {
+                    scheduledTask = take(own, own, now, now);
+                } finally {
+                    own.lock.unlock();
+                }
+            }
+            if (scheduledTask == null) {
+                scheduledTask = steal(own, now);
+            }
+            if (scheduledTask == null) {
+                own.awaitWork(this);
+                continue;
+            }
+            if (!scheduledTask.isCancelled()) {
+                run(scheduledTask, own.nextDue);
+            }
+            if (scheduledTask.isPeriodic()) {
+                requeue(scheduledTask);
+            }
+        }
+    }
+
+    // a task that throws is counted as failed; the worker goes on to the next one
+    private void run(ScheduledTask scheduledTask, long nextDue) {
+        long start = clock.getAsLong();
+        boolean failed = true;
+        try {
+            scheduledTask.getTask().run();
+            failed = false;
+        } catch (RuntimeException e) {
+            // recorded in the task's failure count below
+        } finally {
+            long end = clock.getAsLong();
+            scheduledTask.metrics.recordRun(end - start, failed, end > nextDue);
+        }
+    }
+
+    private ScheduledTask steal(Shard own, long now) {
+        int start = ThreadLocalRandom.current().nextInt(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            Shard victim = shards[(start + i) % shards.length];
+            if (victim == own || victim.nextDeadline > now - STEAL_DELAY_NANOS || !victim.lock.tryLock()) {
+                continue;
+            }
+            try {
+                ScheduledTask scheduledTask = take(victim, own, now - STEAL_DELAY_NANOS, now);
+                if (scheduledTask != null) {
+                    return scheduledTask;
+                }
+            } finally {
+                victim.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Polls a task due by {@code dueBy} from a shard whose lock is held, for the worker of {@code own}. A
+     * periodic task is marked in flight and only re-queued on the same shard when its run is over, so no
+     * other worker can steal its next run while this one is still going.
+     */
+    private ScheduledTask take(Shard shard, Shard own, long dueBy, long now) {
+        ScheduledTask scheduledTask = shard.tasks.pollDue(dueBy);
+        if (scheduledTask == null) {
+            return null;
+        }
+        long late = now - scheduledTask.getExecutionTime();
+        metrics.recordLateness(scheduledTask.metrics, late);
+        if (scheduledTask.getLateness() != null) {
+            scheduledTask.getLateness().record(late);
+        }
+        own.nextDue = Long.MAX_VALUE;
+        if (scheduledTask.isPeriodic() && !scheduledTask.isCancelled()) {
+            scheduledTask.setExecutionTime(scheduledTask.nextExecutionTime(now));
+            scheduledTask.inFlight = true;
+            shard.inFlight++;
+            own.nextDue = scheduledTask.getExecutionTime();
+        }
+        shard.publishDeadline();
+        return scheduledTask;
+    }
+
+    // when an idle worker has to wake up: for its own tasks, or to steal from a shard whose owner is busy
+    private long wakeUpTime(Shard own) {
+        long earliest = own.nextDeadline;
+        for (Shard shard : shards) {
+            long deadline = shard.nextDeadline;
+            if (shard != own && !shard.idle && deadline != Long.MAX_VALUE) {
+                earliest = Math.min(earliest, deadline + STEAL_DELAY_NANOS);
+            }
+        }
+        return earliest;
+    }
+
+    private static final class Shard {
+        private final int index;
+        private final TaskQueue tasks = new HeapTaskQueue();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition workAvailable = lock.newCondition();
+        private volatile long nextDeadline = Long.MAX_VALUE;
+        private volatile boolean idle;
+        // periodic tasks of this shard out of its queue while their run is in progress, guarded by the lock
+        private int inFlight;
+        // when the successor of the run the worker is on is due; only the worker touches it
+        private long nextDue;
+        private Thread worker;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        void publishDeadline() {
+            nextDeadline = tasks.nextDeadline();
+        }
+
+        void awaitWork(ShardedTaskSchedulor scheduler) {
+            lock.lock();
+            try {
+                // idle is set before reading the deadlines, so a task added after the read finds it and signals
+                idle = true;
+                long earliest = scheduler.wakeUpTime(this);
+                if (!scheduler.running) {
+                    return;
+                }
+                if (earliest == Long.MAX_VALUE) {
+                    workAvailable.await();
+                } else if (earliest > scheduler.clock.getAsLong()) {
+                    workAvailable.awaitNanos(earliest - scheduler.clock.getAsLong());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                scheduler.running = false;
+            } finally {
+                idle = false;
+                lock.unlock();
+            }
+        }
+
+        void signal() {
+            lock.lock();
+            try {
+                workAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
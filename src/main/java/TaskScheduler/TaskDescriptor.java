@@ -0,0 +1,16 @@
+package TaskScheduler;
+
+/**
+ * A task that can outlive the process: the name its code is registered under in a {@link TaskRegistry}
+ * and the bytes that code needs.
+ */
+public record TaskDescriptor(String name, byte[] payload) {
+    public TaskDescriptor {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("name must not be empty");
+        }
+        if (payload == null) {
+            payload = new byte[0];
+        }
+    }
+}
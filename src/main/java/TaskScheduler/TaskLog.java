@@ -0,0 +1,287 @@
+package TaskScheduler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Append-only, memory-mapped log of schedule and remove records, replayed when it is opened.
+ * <p>
+ * A record is a type byte, a body length and the body. The type byte is written last, so a record torn
+ * by a crash reads as the end of the log. Writes land in the page cache, which survives a process crash;
+ * {@link #force()} (called on compaction and close) makes them survive a machine crash too.
+ * <p>
+ * The live schedule records are also kept in memory. Once removed records outnumber live ones,
+ * {@link #needsCompaction()} turns true and the owner should call {@link #compact()} off the hot path:
+ * the live records are written to a new file that atomically replaces the old one.
+ */
+public class TaskLog implements AutoCloseable {
+    private static final long MAGIC = 0x5441534B4C4F4731L;
+    private static final int HEADER_BYTES = 16;
+    private static final byte END = 0, SCHEDULE = 1, REMOVE = 2;
+    private static final int RECORD_HEADER_BYTES = 5;
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    private final Path path;
+    private final Map<Long, Entry> live = new HashMap<>();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private Segment segment;
+    private boolean closed;
+    private long nextId = 1;
+
+    /**
+     * A live schedule record. {@code executionTimeMillis} is wall clock time, the only clock that still
+     * means something after a restart; for a periodic task it is the first execution time.
+     */
+    public record Entry(long id, TaskDescriptor descriptor, long executionTimeMillis, long periodNanos,
+                        boolean fixedRate, MissedRunPolicy missedRunPolicy) {
+    }
+
+    public TaskLog(Path path, int initialBytes) throws IOException {
+        this.path = path;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            this.segment = new Segment(channel, Math.max(initialBytes, HEADER_BYTES * 2));
+        } else {
+            this.segment = new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            if (segment.buffer.getLong(0) != MAGIC) {
+                channel.close();
+                throw new IOException(path + " is not a task log");
+            }
+            replay();
+        }
+    }
+
+    public synchronized long appendSchedule(TaskDescriptor descriptor, long executionTimeMillis, long periodNanos,
+                                            boolean fixedRate, MissedRunPolicy missedRunPolicy) {
+        Entry entry = new Entry(nextId++, descriptor, executionTimeMillis, periodNanos, fixedRate, missedRunPolicy);
+        live.put(entry.id(), entry);
+        segment.writeSchedule(entry);
+        return entry.id();
+    }
+
+    /**
+     * Records that a task will not run again. Does nothing for a task that is not live.
+     *
+     * @return {@link #needsCompaction()}, so the caller can hand {@link #compact()} to a background thread
+     */
+    public synchronized boolean appendRemove(long id) {
+        if (live.remove(id) == null) {
+            return false;
+        }
+        int start = segment.reserve(Long.BYTES);
+        segment.buffer.putLong(start + RECORD_HEADER_BYTES, id);
+        segment.commit(start, REMOVE, Long.BYTES);
+        return needsCompaction();
+    }
+
+    // true once the records for removed tasks outnumber the live ones
+    public synchronized boolean needsCompaction() {
+        return segment.records - live.size() > Math.max(MIN_COMPACTION_RECORDS, live.size());
+    }
+
+    public synchronized Collection<Entry> entries() {
+        return new ArrayList<>(live.values());
+    }
+
+    public synchronized int size() {
+        return live.size();
+    }
+
+    /**
+     * Rewrites the log with only the live records. The monitor is held only to take a snapshot and, at
+     * the end, to copy over the records appended meanwhile and swap files, so appends are not held up
+     * by the bulk of the writing. The log is left as it was if anything fails. A call while another
+     * compaction runs does nothing.
+     */
+    public void compact() {
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Segment next = null;
+        try {
+            List<Entry> entries;
+            int snapshotEnd;
+            int capacity;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                entries = new ArrayList<>(live.values());
+                snapshotEnd = segment.position;
+                capacity = segment.buffer.capacity();
+            }
+            next = new Segment(FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE), Math.max(capacity / 2, HEADER_BYTES * 2));
+            for (Entry entry : entries) {
+                next.writeSchedule(entry);
+            }
+            next.buffer.force();
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                // appended while the snapshot was written; replay applies them on top of it
+                next.appendRecords(segment.buffer, snapshotEnd, segment.position);
+                next.buffer.force();
+                Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Segment old = segment;
+                segment = next;
+                next = null;
+                old.channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (next != null) {
+                try {
+                    next.channel.close();
+                    Files.deleteIfExists(compacted);
+                } catch (IOException ignored) {
+                    // the next compaction truncates it
+                }
+            }
+            compacting.set(false);
+        }
+    }
+
+    public synchronized void force() {
+        segment.buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segment.buffer.force();
+        segment.channel.close();
+    }
+
+    private void replay() {
+        int at = HEADER_BYTES;
+        int records = 0;
+        // a log holds many tasks under few names, share one String per name
+        Map<String, String> names = new HashMap<>();
+        MappedByteBuffer buffer = segment.buffer;
+        while (at + RECORD_HEADER_BYTES <= buffer.capacity()) {
+            byte type = buffer.get(at);
+            int length = buffer.getInt(at + 1);
+            if (type == END || length < 0 || at + RECORD_HEADER_BYTES + length > buffer.capacity()) {
+                break;
+            }
+            int body = at + RECORD_HEADER_BYTES;
+            long id = buffer.getLong(body);
+            if (type == SCHEDULE) {
+                long executionTimeMillis = buffer.getLong(body + 8);
+                long periodNanos = buffer.getLong(body + 16);
+                byte flags = buffer.get(body + 24);
+                byte[] name = new byte[buffer.getShort(body + 25)];
+                buffer.get(body + 27, name);
+                byte[] payload = new byte[buffer.getInt(body + 27 + name.length)];
+                buffer.get(body + 31 + name.length, payload);
+                MissedRunPolicy policy = (flags & 2) != 0 ? MissedRunPolicy.SKIP : MissedRunPolicy.CATCH_UP;
+                String taskName = names.computeIfAbsent(new String(name, StandardCharsets.UTF_8), n -> n);
+                live.put(id, new Entry(id, new TaskDescriptor(taskName, payload),
+                        executionTimeMillis, periodNanos, (flags & 1) != 0, policy));
+            } else {
+                live.remove(id);
+            }
+            nextId = Math.max(nextId, id + 1);
+            records++;
+            at = body + length;
+        }
+        segment.position = at;
+        segment.records = records;
+    }
+
+    // one log file and its mapping; compaction fills a new one before it replaces the current one
+    private static final class Segment {
+        final FileChannel channel;
+        MappedByteBuffer buffer;
+        int position = HEADER_BYTES;
+        int records;
+
+        // a new, empty log
+        Segment(FileChannel channel, int bytes) throws IOException {
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.putLong(0, MAGIC);
+        }
+
+        // an existing log; position and records are set by the replay
+        Segment(FileChannel channel, MappedByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void writeSchedule(Entry entry) {
+            byte[] name = entry.descriptor().name().getBytes(StandardCharsets.UTF_8);
+            byte[] payload = entry.descriptor().payload();
+            int length = 8 + 8 + 8 + 1 + 2 + name.length + 4 + payload.length;
+            int start = reserve(length);
+            int at = start + RECORD_HEADER_BYTES;
+            buffer.putLong(at, entry.id());
+            buffer.putLong(at + 8, entry.executionTimeMillis());
+            buffer.putLong(at + 16, entry.periodNanos());
+            buffer.put(at + 24, (byte) ((entry.fixedRate() ? 1 : 0) | (entry.missedRunPolicy() == MissedRunPolicy.SKIP ? 2 : 0)));
+            buffer.putShort(at + 25, (short) name.length);
+            buffer.put(at + 27, name);
+            buffer.putInt(at + 27 + name.length, payload.length);
+            buffer.put(at + 31 + name.length, payload);
+            commit(start, SCHEDULE, length);
+        }
+
+        // copies whole records from another log, each with its type byte last as in commit
+        void appendRecords(MappedByteBuffer from, int start, int end) {
+            for (int at = start; at < end; ) {
+                int length = from.getInt(at + 1);
+                int to = reserve(length);
+                buffer.put(to + RECORD_HEADER_BYTES, from, at + RECORD_HEADER_BYTES, length);
+                commit(to, from.get(at), length);
+                at += RECORD_HEADER_BYTES + length;
+            }
+        }
+
+        // returns the offset of a record with room for the body, growing the mapping if needed
+        int reserve(int length) {
+            int needed = position + RECORD_HEADER_BYTES + length + 1;
+            if (needed > buffer.capacity()) {
+                long capacity = buffer.capacity();
+                while (capacity < needed) {
+                    capacity *= 2;
+                }
+                if (capacity > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("task log is full");
+                }
+                try {
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return position;
+        }
+
+        void commit(int start, byte type, int length) {
+            buffer.putInt(start + 1, length);
+            buffer.put(start, type);
+            position = start + RECORD_HEADER_BYTES + length;
+            records++;
+        }
+    }
+}
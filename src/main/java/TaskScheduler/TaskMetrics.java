@@ -0,0 +1,57 @@
+package TaskScheduler;
+
+import Timing.WaitTimeHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics for every task scheduled under one name, all times in nanos.
+ * <ul>
+ *   <li>lateness: how long after its planned time a run was dispatched</li>
+ *   <li>duration: how long a run took</li>
+ *   <li>overruns: runs of a periodic task still going when its next run was due</li>
+ *   <li>failures: runs that threw</li>
+ * </ul>
+ */
+public class TaskMetrics {
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder overruns = new LongAdder();
+    private final WaitTimeHistogram lateness = new WaitTimeHistogram();
+    private final WaitTimeHistogram duration = new WaitTimeHistogram();
+
+    void recordLateness(long nanos) {
+        lateness.record(nanos);
+    }
+
+    void recordRun(long nanos, boolean failed, boolean overran) {
+        runs.increment();
+        duration.record(nanos);
+        if (failed) {
+            failures.increment();
+        }
+        if (overran) {
+            overruns.increment();
+        }
+    }
+
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public long getOverruns() {
+        return overruns.sum();
+    }
+
+    public WaitTimeHistogram getLateness() {
+        return lateness;
+    }
+
+    public WaitTimeHistogram getDuration() {
+        return duration;
+    }
+}
@@ -0,0 +1,36 @@
+package TaskScheduler;
+
+import java.util.Collection;
+
+/**
+ * The pending tasks of a {@link TaskSchedulor}. Only ever touched with the scheduler's lock held, so
+ * implementations need no synchronization of their own. Times are the same {@link System#nanoTime()}
+ * readings as {@link ScheduledTask#getExecutionTime()}.
+ */
+public interface TaskQueue {
+    void add(ScheduledTask task);
+
+    default void addAll(Collection<ScheduledTask> tasks) {
+        for (ScheduledTask task : tasks) {
+            add(task);
+        }
+    }
+
+    boolean remove(ScheduledTask task);
+
+    /**
+     * Removes and returns a task that is due at {@code now}, or null if there is none.
+     */
+    ScheduledTask pollDue(long now);
+
+    /**
+     * When {@link #pollDue} should next be called, {@link Long#MAX_VALUE} if the queue is empty.
+     */
+    long nextDeadline();
+
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
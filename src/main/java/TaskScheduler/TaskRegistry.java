@@ -0,0 +1,31 @@
+package TaskScheduler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Turns {@link TaskDescriptor}s back into code. Every task name a {@link DurableTaskSchedulor} may
+ * replay has to be registered before the scheduler is created.
+ */
+public class TaskRegistry {
+    private final Map<String, Function<byte[], Runnable>> factories = new ConcurrentHashMap<>();
+
+    public void register(String name, Function<byte[], Runnable> factory) {
+        if (factories.putIfAbsent(name, factory) != null) {
+            throw new IllegalArgumentException("a task is already registered under " + name);
+        }
+    }
+
+    public boolean contains(String name) {
+        return factories.containsKey(name);
+    }
+
+    public Runnable resolve(TaskDescriptor descriptor) {
+        Function<byte[], Runnable> factory = factories.get(descriptor.name());
+        if (factory == null) {
+            throw new IllegalArgumentException("no task registered under " + descriptor.name());
+        }
+        return factory.apply(descriptor.payload());
+    }
+}
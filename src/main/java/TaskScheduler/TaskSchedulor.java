@@ -1,136 +1,373 @@
 package TaskScheduler;
 
-import java.util.PriorityQueue;
+import Timing.WaitTimeHistogram;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
 
-public class TaskSchedulor {
+public class TaskSchedulor implements SchedulerInterface {
+    private static final int MAX_BATCH = 1024;
 
-    private final PriorityQueue<ScheduledTask> tasks;
+    private final TaskQueue tasks;
     private final ExecutorService executor;
+    // caps running virtual threads; they wait for a permit parked, not holding a carrier thread
+    private final Semaphore concurrencyLimit;
     private volatile boolean shutdown;
     private volatile boolean running;
+    private final AtomicLong cancelledCount = new AtomicLong();
+    private final SchedulerMetrics metrics;
+    private final MetricsSink sink;
+    private final LongSupplier clock;
     private final ReentrantLock lock = new ReentrantLock();
     private final Condition queueNotEmpty = lock.newCondition();
+    // periodic tasks out of the queue while their run is in progress
+    private int inFlight;
     private Thread schedulerThread;
     public TaskSchedulor(int poolsize) {
-        tasks = new PriorityQueue<>();
-        if(poolsize < 1) {
-            throw new IllegalArgumentException("poolsize must be greater than 0");
+        this(poolsize, new HeapTaskQueue());
+    }
+
+    /**
+     * @param tasks the engine holding pending tasks, e.g. a {@link TimingWheelTaskQueue} when millions of
+     *              mostly cancelled timeouts are pending
+     */
+    public TaskSchedulor(int poolsize, TaskQueue tasks) {
+        this(tasks, ExecutionMode.PLATFORM_POOL, poolsize);
+    }
+
+    /**
+     * @param concurrency the pool size for {@link ExecutionMode#PLATFORM_POOL}; for
+     *                    {@link ExecutionMode#VIRTUAL_THREADS} the most tasks allowed to run at once, 0 for no cap
+     */
+    public TaskSchedulor(TaskQueue tasks, ExecutionMode mode, int concurrency) {
+        this(tasks, mode, concurrency, MetricsSink.NONE);
+    }
+
+    /**
+     * @param sink where the per-task and scheduler metrics are exported, e.g. a {@link JmxMetricsSink}
+     */
+    public TaskSchedulor(TaskQueue tasks, ExecutionMode mode, int concurrency, MetricsSink sink) {
+        this(tasks, mode, concurrency, sink, System::nanoTime);
+    }
+
+    TaskSchedulor(TaskQueue tasks, ExecutionMode mode, int concurrency, LongSupplier clock) {
+        this(tasks, mode, concurrency, MetricsSink.NONE, clock);
+    }
+
+    TaskSchedulor(TaskQueue tasks, ExecutionMode mode, int concurrency, MetricsSink sink, LongSupplier clock) {
+        this.tasks = tasks;
+        this.clock = clock;
+        this.sink = sink;
+        if(mode == ExecutionMode.PLATFORM_POOL) {
+            if(concurrency < 1) {
+                throw new IllegalArgumentException("poolsize must be greater than 0");
+            }
+            this.executor = Executors.newFixedThreadPool(concurrency);
+            this.concurrencyLimit = null;
+        } else {
+            if(concurrency < 0) {
+                throw new IllegalArgumentException("concurrency must not be negative");
+            }
+            this.executor = Executors.newVirtualThreadPerTaskExecutor();
+            this.concurrencyLimit = concurrency > 0 ? new Semaphore(concurrency) : null;
         }
-        this.executor = Executors.newFixedThreadPool(poolsize);
+        this.metrics = new SchedulerMetrics(this::getQueueSize, this::executorQueueDepth, sink);
+        sink.register(metrics);
         this.shutdown = false;
         this.running = true;
         runTasks();
     }
 
+    @Override
     public ScheduledTask scheduleOnce(Runnable task, long delay, TimeUnit unit) {
         if(delay < 0) {
             throw new IllegalArgumentException("delay must be greater than 0");
         }
-        long executionTime = System.currentTimeMillis() + unit.toMillis(delay);
+        long executionTime = clock.getAsLong() + unit.toNanos(delay);
         ScheduledTask scheduledTask = new ScheduledTask(task, executionTime);
         addTasks(scheduledTask);
         return scheduledTask;
     }
+    @Override
     public ScheduledTask scheduleAtFixedRate(Runnable runnable, long delay, TimeUnit unit, long period ){
-        if(delay < 0) {
-            throw new IllegalArgumentException("delay must be greater than 0");
-        }
-        long executionTime = System.currentTimeMillis() + unit.toMillis(delay);
-        ScheduledTask scheduledTask = new ScheduledTask(runnable, executionTime, period, true);
+        return scheduleAtFixedRate(runnable, delay, unit, period, MissedRunPolicy.CATCH_UP);
+    }
+    @Override
+    public ScheduledTask scheduleAtFixedRate(Runnable runnable, long delay, TimeUnit unit, long period, MissedRunPolicy missedRunPolicy) {
+        return schedulePeriodic(runnable, delay, unit, period, true, missedRunPolicy);
+    }
+    @Override
+    public ScheduledTask scheduleAtFixedDelay(Runnable runnable, long delay, TimeUnit unit, long period) {
+        return schedulePeriodic(runnable, delay, unit, period, false, MissedRunPolicy.CATCH_UP);
+    }
+
+    /**
+     * Schedules {@code runnable} on a calendar. With {@link MissedRunPolicy#SKIP} fires missed while the
+     * pool was busy are dropped, as cron does; {@link MissedRunPolicy#CATCH_UP} runs each of them.
+     */
+    @Override
+    public ScheduledTask scheduleCron(Runnable runnable, CronExpression cron, MissedRunPolicy missedRunPolicy) {
+        ScheduledTask scheduledTask = ScheduledTask.firstCronFire(runnable, cron, missedRunPolicy, clock.getAsLong());
         addTasks(scheduledTask);
         return scheduledTask;
     }
-    public ScheduledTask scheduleAtFixedDelay(Runnable runnable, long delay, TimeUnit unit, long period) {
+
+    /**
+     * Schedules a batch under one lock acquisition with one wake-up of the scheduler thread; the heap
+     * engine heapifies the batch in one pass instead of sifting every task in.
+     */
+    @Override
+    public List<ScheduledTask> scheduleAll(Collection<TaskSpec> specs) {
+        long now = clock.getAsLong();
+        List<ScheduledTask> scheduledTasks = new ArrayList<>(specs.size());
+        for (TaskSpec spec : specs) {
+            ScheduledTask scheduledTask = spec.toScheduledTask(now);
+            scheduledTask.scheduler = this;
+            scheduledTask.metrics = metrics.forTask(NamedTask.nameOf(scheduledTask.getTask()));
+            scheduledTasks.add(scheduledTask);
+        }
+        lock.lock();
+        try {
+            tasks.addAll(scheduledTasks);
+            queueNotEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return scheduledTasks;
+    }
+
+    private ScheduledTask schedulePeriodic(Runnable runnable, long delay, TimeUnit unit, long period, boolean fixedRate, MissedRunPolicy missedRunPolicy) {
         if(delay < 0) {
             throw new IllegalArgumentException("delay must be greater than 0");
         }
-        long executionTime = System.currentTimeMillis() + unit.toMillis(delay);
-        ScheduledTask scheduledTask = new ScheduledTask(runnable, executionTime, period, false);
+        if(period < 1) {
+            throw new IllegalArgumentException("period must be greater than 0");
+        }
+        long executionTime = clock.getAsLong() + unit.toNanos(delay);
+        ScheduledTask scheduledTask = new ScheduledTask(runnable, executionTime, unit.toNanos(period), fixedRate, missedRunPolicy);
         addTasks(scheduledTask);
         return scheduledTask;
     }
 
     private void runTasks() {
         schedulerThread = new Thread(() ->{
+            List<ScheduledTask> due = new ArrayList<>();
+            // when each due run's successor is due, a run still going by then is an overrun
+            long[] nextDue = new long[MAX_BATCH];
             while(running) {
-                ScheduledTask scheduledTask = null;
-                long delay = 0;
                 lock.lock();
                 try{
-                // check if queue has tasks
-                if(running && tasks.isEmpty()) {
-                    try {
-                        queueNotEmpty.await();
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException(e);
+                    if(!running) {
+                        break;
                     }
-                }
-
-                if(!running){
-                    break;
-                }
-
-                scheduledTask = tasks.peek();
-                long currentTime = System.currentTimeMillis();
-                assert scheduledTask != null;
-                if(currentTime < scheduledTask.getExecutionTime() ){
-                    if(!scheduledTask.isCancelled()) {
-                        tasks.poll();
-                        executor.submit(scheduledTask.getTask());
-                        if (scheduledTask.getPeriod() > 0 && !scheduledTask.isCancelled()) {
-                            scheduledTask.setExecutionTime(System.currentTimeMillis() + scheduledTask.getPeriod());
-                            addTasks(scheduledTask);
+                    long currentTime = clock.getAsLong();
+                    // take everything that is due in one pass, capped so a catching-up task cannot hold the lock
+                    ScheduledTask scheduledTask;
+                    while(due.size() < MAX_BATCH && (scheduledTask = tasks.pollDue(currentTime)) != null) {
+                        recordLateness(scheduledTask, currentTime);
+                        nextDue[due.size()] = Long.MAX_VALUE;
+                        if (scheduledTask.isPeriodic() && !scheduledTask.isCancelled()) {
+                            // re-queued only once this run is over, so missed runs catch up one after another
+                            scheduledTask.setExecutionTime(scheduledTask.nextExecutionTime(currentTime));
+                            scheduledTask.inFlight = true;
+                            inFlight++;
+                            nextDue[due.size()] = scheduledTask.getExecutionTime();
+                        }
+                        due.add(scheduledTask);
+                    }
+                    if(due.isEmpty()) {
+                        // nothing due: sleep until the next deadline, an earlier task or shutdown wakes us
+                        if(tasks.isEmpty()) {
+                            queueNotEmpty.await();
                         } else {
-                            System.out.println("Task was cancelled, not rescheduling");
+                            long delay = tasks.nextDeadline() - currentTime;
+                            if(delay > 0) {
+                                queueNotEmpty.awaitNanos(delay);
+                            }
                         }
-                    }else{
                         continue;
                     }
-                }else{
-                    delay = scheduledTask.getExecutionTime() - currentTime;
-                }
-                }finally {
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                    break;
+                } finally {
                     lock.unlock();
                 }
 
-                if(delay > 0) {
-                    lock.lock();
-                    try{
-                        queueNotEmpty.awaitNanos(TimeUnit.MILLISECONDS.toNanos(delay));
-                    }catch (InterruptedException e){
-                        Thread.currentThread().interrupt();
-                        System.out.println("Interrupted while waiting for delay to complete");
-                        running = false;
-                    }finally {
-                        lock.unlock();
+                for(int i = 0; i < due.size(); i++) {
+                    ScheduledTask scheduledTask = due.get(i);
+                    if(!scheduledTask.isCancelled()) {
+                        executor.submit(limited(instrumented(scheduledTask, nextDue[i])));
+                    } else if (scheduledTask.inFlight) {
+                        // cancelled before its run was handed out: release it without running
+                        requeue(scheduledTask, clock.getAsLong());
                     }
                 }
+                due.clear();
             }
-            System.out.println("Scheduler Stopped");
-
         });
 
         schedulerThread.setDaemon(true);
         schedulerThread.start();
     }
 
+    /**
+     * Cancels the task and unlinks it from the queue: O(log n) on a {@link HeapTaskQueue}, O(1) on a
+     * {@link TimingWheelTaskQueue}. A periodic task that is running is not re-queued once the run ends.
+     *
+     * @return false if the task was no longer scheduled, i.e. a one-shot task that already ran or a task
+     * that was cancelled before
+     */
+    @Override
+    public boolean cancel(ScheduledTask scheduledTask) {
+        lock.lock();
+        try {
+            boolean wasCancelled = scheduledTask.isCancelled();
+            scheduledTask.setCancelled(true);
+            if (!tasks.remove(scheduledTask) && (wasCancelled || !scheduledTask.inFlight)) {
+                return false;
+            }
+            cancelledCount.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // queued tasks, and periodic tasks whose run is in progress
+    @Override
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return tasks.size() + inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * How late tasks were dispatched after their execution time, in nanos, across all tasks.
+     */
+    @Override
+    public WaitTimeHistogram getLateness() {
+        return metrics.getLateness();
+    }
+
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
+    // wakes the scheduler thread so it re-reads the clock, for tests driving an injected clock
+    void wakeUp() {
+        lock.lock();
+        try {
+            queueNotEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordLateness(ScheduledTask scheduledTask, long now) {
+        long late = now - scheduledTask.getExecutionTime();
+        metrics.recordLateness(scheduledTask.metrics, late);
+        if (scheduledTask.getLateness() != null) {
+            scheduledTask.getLateness().record(late);
+        }
+    }
+
+    // times the run on the scheduler's clock; an exception still reaches the executor as before
+    private Runnable instrumented(ScheduledTask scheduledTask, long nextDue) {
+        Runnable task = scheduledTask.getTask();
+        TaskMetrics taskMetrics = scheduledTask.metrics;
+        return () -> {
+            long start = clock.getAsLong();
+            boolean failed = true;
+            try {
+                task.run();
+                failed = false;
+            } finally {
+                long end = clock.getAsLong();
+                taskMetrics.recordRun(end - start, failed, end > nextDue);
+                if (scheduledTask.isPeriodic()) {
+                    requeue(scheduledTask, end);
+                }
+            }
+        };
+    }
+
+    private void requeue(ScheduledTask scheduledTask, long now) {
+        lock.lock();
+        try {
+            scheduledTask.inFlight = false;
+            inFlight--;
+            if (scheduledTask.isCancelled()) {
+                return;
+            }
+            scheduledTask.runFinished(now);
+            tasks.add(scheduledTask);
+            queueNotEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // runs waiting for a pool thread, or for a permit when virtual threads are capped
+    private long executorQueueDepth() {
+        if (executor instanceof ThreadPoolExecutor pool) {
+            return pool.getQueue().size();
+        }
+        return concurrencyLimit != null ? concurrencyLimit.getQueueLength() : 0;
+    }
+
+    private Runnable limited(Runnable task) {
+        if(concurrencyLimit == null) {
+            return task;
+        }
+        return () -> {
+            try {
+                concurrencyLimit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                concurrencyLimit.release();
+            }
+        };
+    }
+
+    @Override
+    public long getCancelledCount() {
+        return cancelledCount.get();
+    }
+
     private void addTasks(ScheduledTask scheduledTask) {
+        scheduledTask.scheduler = this;
+        scheduledTask.metrics = metrics.forTask(NamedTask.nameOf(scheduledTask.getTask()));
         lock.lock();
         try {
-            tasks.offer(scheduledTask);
+            tasks.add(scheduledTask);
             queueNotEmpty.signal();
         }finally {
             lock.unlock();
         }
     }
+    @Override
     public void shutdown() {
         shutdown = true;
         running = false;
@@ -159,6 +396,7 @@ public class TaskSchedulor {
         }catch (InterruptedException e){
             Thread.currentThread().interrupt();
         }
+        sink.close();
     }
 
     private void shutdownNow() {
@@ -174,6 +412,5 @@ public class TaskSchedulor {
             schedulerThread.interrupt();
         }
         executor.shutdownNow();
-        System.out.println("Task Scheduler Stopped");
     }
 }
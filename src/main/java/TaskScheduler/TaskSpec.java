@@ -0,0 +1,41 @@
+package TaskScheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One task for {@link SchedulerInterface#scheduleAll}. {@code period} is in {@code unit} and 0 for a
+ * one-shot task.
+ */
+public record TaskSpec(Runnable task, long delay, TimeUnit unit, long period, boolean fixedRate, MissedRunPolicy missedRunPolicy) {
+    public TaskSpec {
+        if (delay < 0) {
+            throw new IllegalArgumentException("delay must be greater than 0");
+        }
+        if (period < 0) {
+            throw new IllegalArgumentException("period must not be negative");
+        }
+    }
+
+    public static TaskSpec once(Runnable task, long delay, TimeUnit unit) {
+        return new TaskSpec(task, delay, unit, 0, false, MissedRunPolicy.CATCH_UP);
+    }
+
+    public static TaskSpec atFixedRate(Runnable task, long delay, TimeUnit unit, long period, MissedRunPolicy missedRunPolicy) {
+        return new TaskSpec(task, delay, unit, requirePeriod(period), true, missedRunPolicy);
+    }
+
+    public static TaskSpec atFixedDelay(Runnable task, long delay, TimeUnit unit, long period) {
+        return new TaskSpec(task, delay, unit, requirePeriod(period), false, MissedRunPolicy.CATCH_UP);
+    }
+
+    ScheduledTask toScheduledTask(long now) {
+        return new ScheduledTask(task, now + unit.toNanos(delay), unit.toNanos(period), fixedRate, missedRunPolicy);
+    }
+
+    private static long requirePeriod(long period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be greater than 0");
+        }
+        return period;
+    }
+}
@@ -0,0 +1,78 @@
+package TaskScheduler;
+
+import Timing.HierarchicalWheel;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A {@link TaskQueue} on a {@link HierarchicalWheel}. Tasks are linked into their slot through fields on
+ * {@link ScheduledTask}, so add and remove are O(1) whatever the number of pending tasks. The price is
+ * resolution: a task fires on the first tick at or after its execution time, and tasks within one tick
+ * are not ordered.
+ */
+public class TimingWheelTaskQueue implements TaskQueue {
+    private final long tickNanos;
+    private final long startTime;
+    private final HierarchicalWheel<ScheduledTask> wheel = new HierarchicalWheel<>();
+    // tasks whose tick has passed, waiting to be polled
+    private final HierarchicalWheel.Bucket<ScheduledTask> due = new HierarchicalWheel.Bucket<>();
+    private final Consumer<ScheduledTask> expire = due::add;
+    private int size;
+
+    public TimingWheelTaskQueue(long tickDuration, TimeUnit unit) {
+        this(tickDuration, unit, System.nanoTime());
+    }
+
+    TimingWheelTaskQueue(long tickDuration, TimeUnit unit, long startTime) {
+        if (tickDuration < 1) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.startTime = startTime;
+    }
+
+    @Override
+    public void add(ScheduledTask task) {
+        // round up so a task never fires before its execution time
+        long deadlineTick = -Math.floorDiv(startTime - task.getExecutionTime(), tickNanos);
+        if (deadlineTick <= wheel.currentTick()) {
+            due.add(task);
+        } else {
+            wheel.insert(task, deadlineTick);
+        }
+        size++;
+    }
+
+    @Override
+    public boolean remove(ScheduledTask task) {
+        if (!due.remove(task) && !wheel.remove(task)) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public ScheduledTask pollDue(long now) {
+        wheel.advanceTo((now - startTime) / tickNanos, expire);
+        ScheduledTask task = due.poll();
+        if (task != null) {
+            size--;
+        }
+        return task;
+    }
+
+    @Override
+    public long nextDeadline() {
+        if (!due.isEmpty()) {
+            return startTime + wheel.currentTick() * tickNanos;
+        }
+        return wheel.pending() == 0 ? Long.MAX_VALUE : startTime + (wheel.currentTick() + 1) * tickNanos;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,13 @@
+package ThreadPoolExecutorExample;
+
+/**
+ * Decides whether a submitted task may be queued at all, before the queue's capacity is looked at. A
+ * task that is not admitted goes to the pool's {@link RejectionPolicy}.
+ */
+@FunctionalInterface
+public interface AdmissionPolicy {
+    boolean admit(ThreadPoolExecutorExample pool);
+
+    // admits everything the queue has room for; the default
+    AdmissionPolicy ADMIT_ALL = pool -> true;
+}
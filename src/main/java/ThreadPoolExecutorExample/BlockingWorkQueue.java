@@ -0,0 +1,58 @@
+package ThreadPoolExecutorExample;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link PoolMode#CLASSIC} queue: a {@link LinkedBlockingQueue}, whose put and take locks every
+ * submitter and worker contend on.
+ */
+public class BlockingWorkQueue implements WorkQueue {
+    private final BlockingQueue<Runnable> queue;
+
+    public BlockingWorkQueue(int capacity) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        return queue.offer(task);
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        return queue.take();
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    @Override
+    public Runnable poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(queue.toArray());
+    }
+}
@@ -0,0 +1,88 @@
+package ThreadPoolExecutorExample;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The Chase-Lev work-stealing deque: its owner pushes and pops at the bottom without a CAS except when
+ * it races a thief for the last task, while any other thread steals the oldest task from the top with
+ * one CAS. The array doubles when full, so pushes never fail.
+ * <p>
+ * {@code bottom} and {@code top} are volatile, which gives the store-load ordering between the owner's
+ * write of {@code bottom} and its read of {@code top} in {@link #pop()} that the algorithm relies on.
+ */
+public class ChaseLevDeque {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile long bottom;
+    private final AtomicLong top = new AtomicLong();
+    private volatile AtomicReferenceArray<Runnable> array = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+
+    // owner only
+    public void push(Runnable task) {
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<Runnable> a = array;
+        if (b - t >= a.length() - 1) {
+            a = grow(a, b, t);
+        }
+        a.lazySet((int) b & (a.length() - 1), task);
+        bottom = b + 1;
+    }
+
+    // owner only: the newest task, null if the deque is empty
+    public Runnable pop() {
+        long b = bottom - 1;
+        AtomicReferenceArray<Runnable> a = array;
+        bottom = b;
+        long t = top.get();
+        if (t > b) {
+            bottom = b + 1;
+            return null;
+        }
+        int index = (int) b & (a.length() - 1);
+        Runnable task = a.get(index);
+        if (t == b) {
+            // the last task: whoever moves top first gets it
+            if (!top.compareAndSet(t, t + 1)) {
+                task = null;
+            }
+            bottom = b + 1;
+        } else {
+            a.lazySet(index, null);
+        }
+        return task;
+    }
+
+    // any thread: the oldest task, null if the deque is empty or another thread took it first
+    public Runnable steal() {
+        long t = top.get();
+        long b = bottom;
+        if (t >= b) {
+            return null;
+        }
+        AtomicReferenceArray<Runnable> a = array;
+        int index = (int) t & (a.length() - 1);
+        Runnable task = a.get(index);
+        if (!top.compareAndSet(t, t + 1)) {
+            return null;
+        }
+        // the owner cannot reach this slot again before top has moved on, so clearing it is safe
+        a.compareAndSet(index, task, null);
+        return task;
+    }
+
+    public int size() {
+        long size = bottom - top.get();
+        return (int) Math.max(0, size);
+    }
+
+    private AtomicReferenceArray<Runnable> grow(AtomicReferenceArray<Runnable> old, long b, long t) {
+        AtomicReferenceArray<Runnable> grown = new AtomicReferenceArray<>(old.length() * 2);
+        for (long i = t; i < b; i++) {
+            grown.lazySet((int) i & (grown.length() - 1), old.get((int) i & (old.length() - 1)));
+        }
+        array = grown;
+        return grown;
+    }
+}
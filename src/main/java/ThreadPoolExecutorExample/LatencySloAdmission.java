@@ -0,0 +1,77 @@
+package ThreadPoolExecutorExample;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rejects a task early, while the queue still has room, once the wait it would see is estimated to be
+ * over a latency target. Under overload this keeps the queue at about target times throughput, so
+ * the tasks that are admitted still finish in time instead of everybody waiting out a full queue.
+ * <p>
+ * The wait is estimated by Little's law as the queue length times the time between completions, which
+ * is measured over windows of {@code window}. That needs only a clock read and a queue size per submit,
+ * no timestamp per task. Until the first window closes everything is admitted. A submit that finds the
+ * queue empty restarts a stale window, so an idle spell never counts as slow completions once load
+ * returns. Use one instance per pool.
+ */
+public class LatencySloAdmission implements AdmissionPolicy {
+    private final long targetNanos;
+    private final long windowNanos;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private volatile long completedAtWindowStart;
+    // how often a task completes, averaged over the last window; 0 until one has closed
+    private volatile long nanosPerCompletion;
+
+    public LatencySloAdmission(long target, long window, TimeUnit unit) {
+        if (target <= 0 || window <= 0) {
+            throw new IllegalArgumentException("target and window must be greater than 0");
+        }
+        this.targetNanos = unit.toNanos(target);
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    @Override
+    public boolean admit(ThreadPoolExecutorExample pool) {
+        int queued = pool.getQueueLength();
+        if (queued == 0) {
+            restartStaleWindow(pool);
+            return true;
+        }
+        sample(pool);
+        long perCompletion = nanosPerCompletion;
+        return perCompletion <= targetNanos / queued;
+    }
+
+    private void sample(ThreadPoolExecutorExample pool) {
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        // only the submitter that moves the window on takes the sample
+        if (now - start < windowNanos || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        long completed = pool.getCompletedTaskCount();
+        long done = completed - completedAtWindowStart;
+        completedAtWindowStart = completed;
+        // nothing finished for a whole window while work waits: admit nothing until something does
+        nanosPerCompletion = done == 0 ? Long.MAX_VALUE : (now - start) / done;
+    }
+
+    private void restartStaleWindow(ThreadPoolExecutorExample pool) {
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start < windowNanos || !windowStart.compareAndSet(start, now)) {
+            return;
+        }
+        completedAtWindowStart = pool.getCompletedTaskCount();
+        // the workers kept up with everything submitted, whatever the last window said
+        if (nanosPerCompletion == Long.MAX_VALUE) {
+            nanosPerCompletion = 0;
+        }
+    }
+
+    public long getEstimatedWaitNanos(ThreadPoolExecutorExample pool) {
+        long perCompletion = nanosPerCompletion;
+        int queued = pool.getQueueLength();
+        return queued == 0 ? 0 : perCompletion > Long.MAX_VALUE / queued ? Long.MAX_VALUE : perCompletion * queued;
+    }
+}
@@ -0,0 +1,108 @@
+package ThreadPoolExecutorExample;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The {@link PoolMode#HIGH_THROUGHPUT} queue: a bounded multi-producer multi-consumer ring after Dmitry
+ * Vyukov's design. Each slot carries a sequence number telling producers and consumers whose turn it
+ * is, so offer and poll are one CAS on the tail or head and never block. The capacity is rounded up to
+ * a power of two, and to at least 2 since with one slot "filled" and "free again" would be the same
+ * sequence number.
+ * <p>
+ * Workers wait in a {@link WorkerParker}, so under load a submit touches no lock and wakes nobody.
+ */
+public class MpmcWorkQueue implements WorkQueue {
+    private final int mask;
+    private final AtomicReferenceArray<Runnable> buffer;
+    private final AtomicLongArray sequence;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final WorkerParker parker = new WorkerParker();
+
+    public MpmcWorkQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = Math.max(2, 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1)));
+        this.mask = size - 1;
+        this.buffer = new AtomicReferenceArray<>(size);
+        this.sequence = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequence.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long turn = sequence.get(index) - position;
+            if (turn == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, task);
+                    sequence.set(index, position + 1);
+                    parker.signal();
+                    return true;
+                }
+                position = tail.get();
+            } else if (turn < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long turn = sequence.get(index) - (position + 1);
+            if (turn == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    Runnable task = buffer.get(index);
+                    buffer.lazySet(index, null);
+                    sequence.set(index, position + mask + 1);
+                    return task;
+                }
+                position = head.get();
+            } else if (turn < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        return parker.await(this::poll, () -> !isEmpty(), false, 0);
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return parker.await(this::poll, () -> !isEmpty(), true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return mask + 1 - size();
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+        }
+    }
+}
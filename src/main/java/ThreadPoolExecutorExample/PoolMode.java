@@ -0,0 +1,10 @@
+package ThreadPoolExecutorExample;
+
+public enum PoolMode {
+    // one locked LinkedBlockingQueue; submit scans the workers for an idle one and logs every step
+    CLASSIC,
+    // a lock-free bounded array queue; workers spin briefly for the next task and then park
+    HIGH_THROUGHPUT,
+    // a work-stealing deque per worker; tasks submitted by a task stay on its worker unless stolen
+    WORK_STEALING
+}
@@ -0,0 +1,85 @@
+package ThreadPoolExecutorExample;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grows a {@link ThreadPoolExecutorExample} when tasks wait too long in its queue. Every interval it
+ * estimates the queue wait by Little's law, queue length divided by the completion rate over the last
+ * interval, and starts one more worker while that is above the target. It never stops workers itself:
+ * once the load drops the extra workers run out of keep-alive and retire, so give the pool one.
+ */
+public class QueueLatencyController implements AutoCloseable {
+    private final ThreadPoolExecutorExample pool;
+    private final long targetLatencyNanos;
+    private final long intervalNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile long estimatedLatencyNanos;
+    private volatile int peakPoolSize;
+    private long lastCompleted;
+    private long lastTick;
+
+    public QueueLatencyController(ThreadPoolExecutorExample pool, long targetLatency, long interval, TimeUnit unit) {
+        if (targetLatency <= 0 || interval <= 0) {
+            throw new IllegalArgumentException("targetLatency and interval must be greater than 0");
+        }
+        this.pool = pool;
+        this.targetLatencyNanos = unit.toNanos(targetLatency);
+        this.intervalNanos = unit.toNanos(interval);
+        this.lastCompleted = pool.getCompletedTaskCount();
+        this.lastTick = System.nanoTime();
+        this.peakPoolSize = pool.getPoolSize();
+        this.thread = new Thread(this::loop, "QueueLatencyController");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(intervalNanos);
+            } catch (InterruptedException e) {
+                return;
+            }
+            adjust();
+        }
+    }
+
+    // one control step; package-private so tests can drive it without waiting for the interval
+    void adjust() {
+        long now = System.nanoTime();
+        long completed = pool.getCompletedTaskCount();
+        long elapsed = now - lastTick;
+        long done = completed - lastCompleted;
+        lastTick = now;
+        lastCompleted = completed;
+        int queued = pool.getQueueLength();
+        if (queued == 0) {
+            estimatedLatencyNanos = 0;
+        } else if (done == 0) {
+            // nothing finished for a whole interval while work waits
+            estimatedLatencyNanos = Long.MAX_VALUE;
+        } else {
+            estimatedLatencyNanos = (long) ((double) queued * elapsed / done);
+        }
+        if (estimatedLatencyNanos > targetLatencyNanos) {
+            pool.addWorker();
+        }
+        peakPoolSize = Math.max(peakPoolSize, pool.getPoolSize());
+    }
+
+    public long getEstimatedLatencyNanos() {
+        return estimatedLatencyNanos;
+    }
+
+    // the largest pool size seen at the end of a tick
+    public int getPeakPoolSize() {
+        return peakPoolSize;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,69 @@
+package ThreadPoolExecutorExample;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What {@link ThreadPoolExecutorExample#execute(Runnable)} does with a task it cannot queue: the queue
+ * is full and the pool at its maximum size, the {@link AdmissionPolicy} turned it away, or the pool is
+ * shut down. A task that cannot be handed to the pool after shutdown is always rejected with a
+ * {@link RejectQueueException}, never dropped silently.
+ */
+@FunctionalInterface
+public interface RejectionPolicy {
+    void rejected(Runnable task, ThreadPoolExecutorExample pool);
+
+    // throws RejectQueueException; the default
+    RejectionPolicy ABORT = (task, pool) -> {
+        throw rejection(pool);
+    };
+
+    // runs the task on the submitting thread, which slows the submitter down to the pool's pace
+    RejectionPolicy CALLER_RUNS = (task, pool) -> {
+        if (pool.isShutdown()) {
+            throw rejection(pool);
+        }
+        task.run();
+    };
+
+    // drops the oldest queued task to make room, for work where only the freshest tasks matter; a task
+    // the admission policy turns away is rejected, since dropping others would not get it admitted
+    RejectionPolicy DROP_OLDEST = (task, pool) -> {
+        while (!pool.isShutdown() && pool.admit()) {
+            if (pool.offer(task)) {
+                return;
+            }
+            pool.pollOldest();
+        }
+        throw rejection(pool);
+    };
+
+    /**
+     * Blocks the submitter until the task is admitted and fits in the queue, backing off from a
+     * microsecond up to a millisecond between attempts. Throws {@link RejectQueueException} if the timeout runs out, the pool
+     * shuts down, or the submitter is interrupted, in which case its interrupt status is kept.
+     */
+    static RejectionPolicy blockWithTimeout(long timeout, TimeUnit unit) {
+        long timeoutNanos = unit.toNanos(timeout);
+        return (task, pool) -> {
+            long deadline = System.nanoTime() + timeoutNanos;
+            long backoff = TimeUnit.MICROSECONDS.toNanos(1);
+            while (!pool.isShutdown() && !Thread.currentThread().isInterrupted()) {
+                if (pool.admit() && pool.offer(task)) {
+                    return;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(Math.min(backoff, remaining));
+                backoff = Math.min(backoff * 2, TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            throw rejection(pool);
+        };
+    }
+
+    static RejectQueueException rejection(ThreadPoolExecutorExample pool) {
+        return new RejectQueueException(pool.isShutdown() ? "Executor is shut down" : "Queue is Full");
+    }
+}
@@ -2,48 +2,134 @@ package ThreadPoolExecutorExample;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class ThreadPoolExecutorExample implements ExecutorInterface {
+    private final int corePoolSize;
     private final int maximumPoolSize;
-    private final BlockingQueue<Runnable> workQueue;
+    // how long a worker above the core size may wait for a task before it retires, 0 to keep it forever
+    private final long keepAliveNanos;
+    private final PoolMode mode;
+    private final WorkQueue workQueue;
     private final List<WorkerThread> workerThreads;
+    // workers started or being started, so the lock-free path can claim a slot before starting one
+    private final AtomicInteger workerCount = new AtomicInteger(0);
     private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+    // set by shutdownNow, so interrupts reach the running tasks too
+    private final AtomicBoolean isStopping = new AtomicBoolean(false);
+    private final LongAdder completedTasks = new LongAdder();
+    private volatile RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+    private volatile AdmissionPolicy admissionPolicy = AdmissionPolicy.ADMIT_ALL;
     private ReentrantLock lock = new ReentrantLock();
     private AtomicInteger executeCount = new AtomicInteger(0);
 
     public ThreadPoolExecutorExample(int corePoolSize, int maximumPoolSize, int queueCapacity) {
+        this(corePoolSize, maximumPoolSize, queueCapacity, PoolMode.CLASSIC);
+    }
+
+    public ThreadPoolExecutorExample(int corePoolSize, int maximumPoolSize, int queueCapacity, PoolMode mode) {
+        this(corePoolSize, maximumPoolSize, queueCapacity, mode, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param keepAliveTime how long a worker beyond {@code corePoolSize} may sit idle before it exits, so
+     *                      the pool shrinks back to its core size after a burst; 0 keeps every worker
+     */
+    public ThreadPoolExecutorExample(int corePoolSize, int maximumPoolSize, int queueCapacity, PoolMode mode,
+                                     long keepAliveTime, TimeUnit unit) {
+        if(corePoolSize < 0 || maximumPoolSize < 1 || maximumPoolSize < corePoolSize) {
+            throw new IllegalArgumentException("pool sizes must satisfy 0 <= core <= maximum and maximum > 0");
+        }
+        if(keepAliveTime < 0) {
+            throw new IllegalArgumentException("keepAliveTime must not be negative");
+        }
+        this.corePoolSize = corePoolSize;
         this.maximumPoolSize = maximumPoolSize;
-        workQueue = new LinkedBlockingQueue<>(queueCapacity);
+        this.keepAliveNanos = unit.toNanos(keepAliveTime);
+        this.mode = mode;
+        workQueue = switch (mode) {
+            case CLASSIC -> new BlockingWorkQueue(queueCapacity);
+            case HIGH_THROUGHPUT -> new MpmcWorkQueue(queueCapacity);
+            case WORK_STEALING -> new WorkStealingWorkQueue(maximumPoolSize, queueCapacity);
+        };
         workerThreads = new CopyOnWriteArrayList<>();
         for(int i = 0; i < corePoolSize; i++) {
-            startNewWorker();
+            workerCount.incrementAndGet();
+            startNewWorker(null);
         }
 
     }
 
+    /**
+     * Queues the task, or hands it to the {@link RejectionPolicy} when the pool is shut down, the
+     * {@link AdmissionPolicy} turns it away, or the queue is full and the pool at its maximum size.
+     */
     @Override
     public void execute(Runnable runnable) {
+        if(isShutdown.get() || !admit() || !offer(runnable)) {
+            rejectionPolicy.rejected(runnable, this);
+        }
+    }
+
+    /**
+     * Like {@link #execute(Runnable)} but never blocks, runs the task on the caller or throws: a task that
+     * is not queued gets a future that has already failed with a {@link RejectQueueException}, whatever
+     * the rejection policy. Otherwise the future completes when the task has run.
+     */
+    public CompletableFuture<Void> trySubmit(Runnable runnable) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                runnable.run();
+                future.complete(null);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+                throw t;
+            }
+        };
+        if(isShutdown.get() || !admit() || !offer(task)) {
+            future.completeExceptionally(RejectionPolicy.rejection(this));
+        }
+        return future;
+    }
+
+    // asks the admission policy; rejection policies that retry ask again before every attempt
+    boolean admit() {
+        return admissionPolicy.admit(this);
+    }
+
+    // queues the task and starts a worker if it needs one; false if neither the queue nor a new worker can take it
+    boolean offer(Runnable runnable) {
+        return mode == PoolMode.CLASSIC ? offerClassic(runnable) : offerLockFree(runnable);
+    }
+
+    // takes the oldest queued task off the queue without running it; for RejectionPolicy.DROP_OLDEST
+    Runnable pollOldest() {
+        return workQueue.poll();
+    }
+
+    private boolean offerClassic(Runnable runnable) {
         try{
             lock.lock();
             System.out.println("Lock acquired by thread : "+ Thread.currentThread().getName());
             if(isShutdown.get()) {
                 System.out.println("Executor is shutting down");
-                return;
+                return false;
             }
-            if(workQueue.remainingCapacity()==0){
-                throw new RejectQueueException("Queue is Full");
+            if(workQueue.remainingCapacity()==0 || !workQueue.offer(runnable)){
+                System.out.println("Queue is Full, rejecting " + runnable);
+                return false;
             }else{
                 System.out.println("Executing " + runnable + " with count " + executeCount.incrementAndGet());
                 System.out.println("Adding task to queue");
-                workQueue.add(runnable);
             }
 
             boolean idleWorkerFound = false;
@@ -57,27 +143,111 @@ public class ThreadPoolExecutorExample implements ExecutorInterface {
             }
 
             // check if the idle workers has picked up tasks or not. If not, create new workers
-            if( (!workQueue.isEmpty() || !idleWorkerFound) && workerThreads.size() < maximumPoolSize) {
+            if( (!workQueue.isEmpty() || !idleWorkerFound) && tryClaimWorker()) {
                 System.out.println("Still tasks in queue or No idle threads found for runnable " +runnable + " with count " + executeCount.get());
-                startNewWorker();
-            }else if(workerThreads.size()>=maximumPoolSize){
+                startNewWorker(null);
+            }else if(workerCount.get()>=maximumPoolSize){
                 System.out.println("Reached maximum pool size, cannot create new worker." +
                         " Wait for other worker to finish");
             }
+            return true;
+        }finally {
+            lock.unlock();
+        }
+    }
 
+    /**
+     * The {@link PoolMode#HIGH_THROUGHPUT} and {@link PoolMode#WORK_STEALING} submit: one CAS into the queue, plus an unpark when a worker is
+     * parked. Only when the queue is full does it claim a worker slot and start a worker with the task.
+     */
+    private boolean offerLockFree(Runnable runnable) {
+        if(isShutdown.get()) {
+            return false;
+        }
+        if(workQueue.offer(runnable)) {
+            // with no core workers, make sure somebody is there to run it
+            if(workerCount.get() == 0 && tryClaimWorker()) {
+                startNewWorker(null);
+            }
+            return true;
+        }
+        if(!tryClaimWorker()) {
+            return false;
+        }
+        startNewWorker(runnable);
+        return true;
+    }
 
+    private boolean tryClaimWorker() {
+        int count;
+        do {
+            count = workerCount.get();
+            if(count >= maximumPoolSize) {
+                return false;
+            }
+        } while(!workerCount.compareAndSet(count, count + 1));
+        return true;
+    }
 
-        }finally {
-            lock.unlock();
+    /**
+     * Starts one more worker unless the pool is at its maximum size; for {@link QueueLatencyController}.
+     */
+    boolean addWorker() {
+        if(isShutdown.get() || !tryClaimWorker()) {
+            return false;
         }
+        startNewWorker(null);
+        return true;
     }
 
+    // how long an idle worker should wait for a task before asking to retire, 0 to wait forever
+    long idleTimeoutNanos() {
+        return workerCount.get() > corePoolSize ? keepAliveNanos : 0;
+    }
+
+    /**
+     * Called by a worker whose keep-alive ran out. Gives up its slot unless that would take the pool
+     * below its core size. The worker's queue state is released before the count drops, so a worker
+     * started in its place always finds a free work-stealing slot; a worker that stays on claims one again.
+     */
+    boolean retire(WorkerThread workerThread) {
+        workQueue.detach();
+        int count;
+        do {
+            count = workerCount.get();
+            if(count <= corePoolSize) {
+                return false;
+            }
+        } while(!workerCount.compareAndSet(count, count - 1));
+        // a task offered meanwhile may have seen the old count and started nobody, so keep going for it
+        if(!workQueue.isEmpty() && tryClaimWorker()) {
+            return false;
+        }
+        workerThreads.remove(workerThread);
+        return true;
+    }
+
+    boolean isStopping() {
+        return isStopping.get();
+    }
+
+    void taskCompleted() {
+        completedTasks.increment();
+    }
+
+    /**
+     * Lets the queued tasks finish, then the workers exit. Idle workers parked on the queue are
+     * interrupted so they notice; a worker running a task is not interrupted.
+     */
     @Override
     public void shutdown() {
         isShutdown.set(true);
         for(WorkerThread workerThread : workerThreads) {
             workerThread.stopWorker();
         }
+        for(WorkerThread workerThread : workerThreads) {
+            workerThread.interruptIfIdle();
+        }
         System.out.println("Executor is shutting down");
 
     }
@@ -86,18 +256,58 @@ public class ThreadPoolExecutorExample implements ExecutorInterface {
     public void shutdownNow() {
         System.out.println("Executor forcefully shutting down all active worker threads");
         isShutdown.set(true);
+        isStopping.set(true);
+        // cleared before the workers are stopped, so they do not drain the queue on their way out
+        workQueue.clear();
         for(WorkerThread workerThread : workerThreads){
-            if(workerThread.isRunning()){
-                try {
+            try {
+                if(workerThread.isRunning()){
                     System.out.println("Worker Thread"+ workerThread.getWorkerName()+" is still running");
-                    workerThread.stopWorker();
-                    workerThread.interrupt();
-                }catch (Exception e){
-                    System.out.println("Worker Thread"+ workerThread.getWorkerName()+" stop failed");
                 }
+                workerThread.stopWorker();
+                workerThread.interrupt();
+            }catch (Exception e){
+                System.out.println("Worker Thread"+ workerThread.getWorkerName()+" stop failed");
             }
         }
-        workQueue.clear();
+    }
+
+    /**
+     * Waits for every worker to exit after a shutdown.
+     *
+     * @return false if some worker was still alive when the timeout ran out
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for(WorkerThread workerThread : workerThreads) {
+            long remaining = deadline - System.nanoTime();
+            if(remaining <= 0) {
+                break;
+            }
+            TimeUnit.NANOSECONDS.timedJoin(workerThread, remaining);
+        }
+        return workerThreads.stream().noneMatch(Thread::isAlive);
+    }
+
+    public void setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    public void setAdmissionPolicy(AdmissionPolicy admissionPolicy) {
+        this.admissionPolicy = admissionPolicy;
+    }
+
+    public boolean isShutdown() {
+        return isShutdown.get();
+    }
+
+    // workers started and not yet retired
+    public int getPoolSize() {
+        return workerCount.get();
+    }
+
+    public long getCompletedTaskCount() {
+        return completedTasks.sum();
     }
 
     @Override
@@ -109,10 +319,17 @@ public class ThreadPoolExecutorExample implements ExecutorInterface {
     public int getQueueLength() {
         return workQueue.size();
     }
-    private void startNewWorker() {
-        System.out.println("Starting new worker thread");
-        WorkerThread workerThread = new WorkerThread(workQueue);
+    private void startNewWorker(Runnable firstTask) {
+        boolean verbose = mode == PoolMode.CLASSIC;
+        if(verbose) {
+            System.out.println("Starting new worker thread");
+        }
+        WorkerThread workerThread = new WorkerThread(workQueue, firstTask, verbose, this);
         workerThreads.add(workerThread);
+        if(isShutdown.get()) {
+            // raced a shutdown that has already stopped the others: run what it was started for, then exit
+            workerThread.stopWorker();
+        }
         workerThread.start();
     }
 }
@@ -0,0 +1,36 @@
+package ThreadPoolExecutorExample;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where submitted tasks wait for a {@link WorkerThread}. Implementations are safe for any number of
+ * submitting and working threads.
+ */
+public interface WorkQueue {
+    // false when the queue is full
+    boolean offer(Runnable task);
+
+    // waits for a task; an interrupt aborts the wait
+    Runnable take() throws InterruptedException;
+
+    // waits at most the timeout, returning null if no task arrived
+    Runnable poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    // takes the oldest task without waiting, null if there is none; safe for threads that are not workers
+    Runnable poll();
+
+    int size();
+
+    int remainingCapacity();
+
+    void clear();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // called by a worker as it exits or retires, for queues that keep state per worker; a worker that
+    // takes again afterwards claims fresh state
+    default void detach() {
+    }
+}
@@ -0,0 +1,161 @@
+package ThreadPoolExecutorExample;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The {@link PoolMode#WORK_STEALING} queue. Every worker owns a slot with a {@link ChaseLevDeque} and
+ * an inbox. A task submitted from a worker is pushed onto that worker's own deque and popped back LIFO,
+ * so recursive fan-out stays on one core and in its cache. Tasks from outside go round-robin into the
+ * slots' inboxes. A worker with nothing of its own steals from the top of a random victim's deque,
+ * taking the oldest and usually biggest piece of work.
+ * <p>
+ * Only the inboxes are bounded; the capacity is split between them. A worker's deque grows as needed,
+ * as in a ForkJoinPool.
+ */
+public class WorkStealingWorkQueue implements WorkQueue {
+    private final ChaseLevDeque[] deques;
+    private final MpmcWorkQueue[] inboxes;
+    private final AtomicReferenceArray<Thread> owners;
+    // the slot owned by the current thread, -1 for threads that are not workers of this queue
+    private final ThreadLocal<Integer> ownSlot = ThreadLocal.withInitial(() -> -1);
+    private final AtomicInteger nextInbox = new AtomicInteger();
+    private final WorkerParker parker = new WorkerParker();
+
+    /**
+     * @param slots the most workers that will take from the queue at once
+     */
+    public WorkStealingWorkQueue(int slots, int capacity) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("slots must be greater than 0");
+        }
+        this.deques = new ChaseLevDeque[slots];
+        this.inboxes = new MpmcWorkQueue[slots];
+        this.owners = new AtomicReferenceArray<>(slots);
+        for (int i = 0; i < slots; i++) {
+            deques[i] = new ChaseLevDeque();
+            inboxes[i] = new MpmcWorkQueue(Math.max(1, capacity / slots));
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        int slot = ownSlot.get();
+        if (slot >= 0) {
+            deques[slot].push(task);
+            parker.signal();
+            return true;
+        }
+        int start = Math.floorMod(nextInbox.getAndIncrement(), inboxes.length);
+        for (int i = 0; i < inboxes.length; i++) {
+            if (inboxes[(start + i) % inboxes.length].offer(task)) {
+                parker.signal();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        return await(false, 0);
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return await(true, unit.toNanos(timeout));
+    }
+
+    // sweeps the inboxes and the tops of the deques without claiming a slot, so any thread may call it
+    @Override
+    public Runnable poll() {
+        Runnable task;
+        for (int i = 0; i < deques.length; i++) {
+            if ((task = inboxes[i].poll()) != null || (task = deques[i].steal()) != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    // gives up the current thread's slot; tasks left in its deque are stolen by the other workers
+    @Override
+    public void detach() {
+        int slot = ownSlot.get();
+        if (slot >= 0) {
+            owners.set(slot, null);
+            ownSlot.remove();
+            parker.signal();
+        }
+    }
+
+    private Runnable await(boolean timed, long nanos) throws InterruptedException {
+        int slot = claimSlot();
+        return parker.await(() -> find(slot), () -> !isEmpty(), timed, nanos);
+    }
+
+    // own deque first, then own inbox, then a sweep over the other slots from a random victim
+    private Runnable find(int slot) {
+        Runnable task = deques[slot].pop();
+        if (task == null) {
+            task = inboxes[slot].poll();
+        }
+        if (task != null) {
+            return task;
+        }
+        int victim = ThreadLocalRandom.current().nextInt(deques.length);
+        for (int i = 0; i < deques.length; i++, victim = victim + 1 == deques.length ? 0 : victim + 1) {
+            if (victim == slot) {
+                continue;
+            }
+            if ((task = deques[victim].steal()) != null || (task = inboxes[victim].poll()) != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private int claimSlot() {
+        int slot = ownSlot.get();
+        if (slot >= 0) {
+            return slot;
+        }
+        Thread current = Thread.currentThread();
+        for (int i = 0; i < deques.length; i++) {
+            if (owners.compareAndSet(i, null, current)) {
+                ownSlot.set(i);
+                return i;
+            }
+        }
+        throw new IllegalStateException("more workers than the " + deques.length + " slots");
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < deques.length; i++) {
+            size += deques[i].size() + inboxes[i].size();
+        }
+        return size;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        int remaining = 0;
+        for (MpmcWorkQueue inbox : inboxes) {
+            remaining += inbox.remainingCapacity();
+        }
+        return remaining;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < deques.length; i++) {
+            while (deques[i].steal() != null || deques[i].size() > 0) {
+            }
+            inboxes[i].clear();
+        }
+    }
+}
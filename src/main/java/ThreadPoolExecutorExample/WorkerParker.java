@@ -0,0 +1,78 @@
+package ThreadPoolExecutorExample;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Spin-then-park waiting for the lock-free queues. A worker finding nothing spins for a short while,
+ * then announces itself and parks. Submitters call {@link #signal()} after publishing a task and only
+ * unpark somebody when a worker is actually parked, so under load a submit touches no lock and wakes
+ * nobody.
+ */
+class WorkerParker {
+    // spinning only pays off when a submitter can run on another core meanwhile
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+    private final Queue<Thread> parked = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Waits until {@code find} returns a task, or the timeout passes if {@code timed}, in which case it
+     * returns null. {@code hasWork} tells whether tasks are left for another worker to take.
+     */
+    Runnable await(Supplier<Runnable> find, BooleanSupplier hasWork, boolean timed, long nanos)
+            throws InterruptedException {
+        long deadline = timed ? System.nanoTime() + nanos : 0;
+        Runnable task;
+        for (int i = 0; i < SPINS; i++) {
+            if ((task = find.get()) != null) {
+                return task;
+            }
+            Thread.onSpinWait();
+        }
+        Thread current = Thread.currentThread();
+        while (true) {
+            if ((task = find.get()) != null) {
+                return task;
+            }
+            parked.add(current);
+            if ((task = find.get()) != null) {
+                // a submitter may have spent its wake-up on us already, hand it on if work is left
+                if (!parked.remove(current) && hasWork.getAsBoolean()) {
+                    wakeOne();
+                }
+                return task;
+            }
+            if (timed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    parked.remove(current);
+                    return null;
+                }
+                LockSupport.parkNanos(this, remaining);
+            } else {
+                LockSupport.park(this);
+            }
+            parked.remove(current);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    void signal() {
+        // pairs with the worker announcing itself before its last look, so one of us sees the other
+        if (!parked.isEmpty()) {
+            wakeOne();
+        }
+    }
+
+    private void wakeOne() {
+        Thread worker = parked.poll();
+        if (worker != null) {
+            LockSupport.unpark(worker);
+        }
+    }
+}
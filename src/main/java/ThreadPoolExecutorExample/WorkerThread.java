@@ -1,50 +1,134 @@
 package ThreadPoolExecutorExample;
 
-import java.util.Arrays;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class WorkerThread extends Thread{
     private static final AtomicInteger workerNumber = new AtomicInteger(0);
+    private static final int IDLE = 0;
+    private static final int BUSY = 1;
+    private static final int INTERRUPTING = 2;
     private final String workerName;
-    private final BlockingQueue<Runnable> workQueue;
+    private final WorkQueue workQueue;
+    // logs every task it takes, as the classic pool does
+    private final boolean verbose;
+    // decides how long the worker may idle before it retires; null to wait for tasks forever
+    private final ThreadPoolExecutorExample pool;
+    private Runnable firstTask;
     private final AtomicBoolean running = new AtomicBoolean(true);
-    private final AtomicBoolean idle = new AtomicBoolean(true);
-    public WorkerThread(BlockingQueue<Runnable> workQueue) {
+    // shutdown interrupts a worker only by moving it from IDLE to INTERRUPTING, so never while it runs a task
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    public WorkerThread(WorkQueue workQueue) {
+        this(workQueue, null, true, null);
+    }
+
+    /**
+     * @param firstTask run before the worker starts taking from the queue, so a worker started for a
+     *                  task that did not fit in the queue does not have to go through it; may be null
+     */
+    public WorkerThread(WorkQueue workQueue, Runnable firstTask, boolean verbose, ThreadPoolExecutorExample pool) {
         this.workerName = "Worker-" + workerNumber.incrementAndGet();
         this.setName(workerName);
         this.workQueue = workQueue;
+        this.firstTask = firstTask;
+        this.verbose = verbose;
+        this.pool = pool;
     }
     @Override
     public void run() {
-        System.out.println("WorkerThread " + workerName + " started");
-        while (running.get() || !workQueue.isEmpty()) {
-            try{
-//                Runnable runnable = workQueue.poll(1, TimeUnit.SECONDS);
-                System.out.println("WorkerThread " + workerName + " working queue is "+ Arrays.toString(workQueue.toArray()));
-                Runnable runnable = workQueue.take();
-                idle.set(false);
-                System.out.println("WorkerThread " + workerName + " is running "+ runnable);
-                runnable.run();
-                idle.set(true);
+        if (verbose) {
+            System.out.println("WorkerThread " + workerName + " started");
+        }
+        try {
+            if (firstTask != null) {
+                runTask(firstTask);
+                firstTask = null;
+            }
+            while (running.get() || !workQueue.isEmpty()) {
+                try{
+                    if (verbose) {
+                        System.out.println("WorkerThread " + workerName + " working queue is " + workQueue);
+                    }
+                    Runnable runnable = nextTask();
+                    if (runnable == null) {
+                        if (running.get() && pool.retire(this)) {
+                            if (verbose) {
+                                System.out.println("WorkerThread " + workerName + " idle too long, retiring");
+                            }
+                            return;
+                        }
+                        continue;
+                    }
+                    runTask(runnable);
+                } catch (InterruptedException e){
+                    if (verbose) {
+                        System.out.println("WorkerThread " + workerName + " interrupted");
+                    }
+                }
+            }
+        } finally {
+            workQueue.detach();
+        }
+    }
+
+    private Runnable nextTask() throws InterruptedException {
+        if (!running.get()) {
+            // draining after shutdown: another worker may take the last task, so never block
+            return workQueue.poll(0, TimeUnit.NANOSECONDS);
+        }
+        long keepAlive = pool == null ? 0 : pool.idleTimeoutNanos();
+        return keepAlive > 0 ? workQueue.poll(keepAlive, TimeUnit.NANOSECONDS) : workQueue.take();
+    }
+
+    private void runTask(Runnable runnable) {
+        while (!state.compareAndSet(IDLE, BUSY)) {
+            Thread.onSpinWait();
+        }
+        // an interrupt meant to wake the idle worker must not reach the task, unless the pool is stopping
+        if (Thread.interrupted() && pool != null && pool.isStopping()) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (verbose) {
+                System.out.println("WorkerThread " + workerName + " is running " + runnable);
+            }
+            runnable.run();
+            if (verbose) {
                 System.out.println("WorkerThread " + workerName + " finished " + runnable);
-            } catch (Exception e){
-                System.out.println("Runnable failed on Worker : "+ workerName +", Moving on to next task");
+            }
+        } catch (Exception e) {
+            System.out.println("Runnable failed on Worker : "+ workerName +", Moving on to next task");
+        } finally {
+            state.set(IDLE);
+            if (pool != null) {
+                pool.taskCompleted();
             }
         }
     }
 
     public void stopWorker() {
         try{
-            System.out.println("Stopping thread : "+ this.workerName);
+            if (verbose) {
+                System.out.println("Stopping thread : "+ this.workerName);
+            }
             running.set(false);
         }catch (Exception e){
             System.out.println("Thread Stopped");
         }
     }
 
+    // wakes the worker if it is waiting for a task; a worker running a task is left alone
+    public void interruptIfIdle() {
+        if (state.compareAndSet(IDLE, INTERRUPTING)) {
+            try {
+                interrupt();
+            } finally {
+                state.set(IDLE);
+            }
+        }
+    }
+
     public boolean isRunning() {
         return running.get();
     }
@@ -53,6 +137,6 @@ public class WorkerThread extends Thread{
         return workerName;
     }
     public boolean isIdle() {
-        return idle.get();
+        return state.get() == IDLE;
     }
 }
@@ -0,0 +1,184 @@
+package Timing;
+
+import java.util.function.Consumer;
+
+/**
+ * The slots of a hierarchical hashed timing wheel, with no clock and no threading of its own:
+ * {@value #LEVELS} levels of {@value #WHEEL_SIZE} slots, level 0 one tick per slot and every level above
+ * {@value #WHEEL_SIZE} times the span of the one below. A slot is cascaded down when the level below
+ * wraps around. Entries are linked into their slot through the fields of {@link Node}, so insert and
+ * remove are O(1) and never allocate.
+ * <p>
+ * Not thread safe; the rate limiters' {@code TimingWheel} drives one from its own thread, the scheduler's
+ * {@code TimingWheelTaskQueue} under the scheduler lock.
+ */
+public class HierarchicalWheel<T extends HierarchicalWheel.Node<T>> {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final Bucket<T>[][] wheels;
+    private long currentTick;
+    private int pending;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalWheel() {
+        wheels = (Bucket<T>[][]) new Bucket<?>[LEVELS][WHEEL_SIZE];
+        for (Bucket<T>[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                wheel[i] = new Bucket<>(this);
+            }
+        }
+    }
+
+    /**
+     * Links the entry into the slot for {@code deadlineTick}, which must be after {@link #currentTick()}.
+     */
+    public void insert(T node, long deadlineTick) {
+        node.deadlineTick = deadlineTick;
+        int level = 0;
+        while (level < LEVELS - 1
+                && (deadlineTick >>> (WHEEL_BITS * level)) - (currentTick >>> (WHEEL_BITS * level)) >= WHEEL_SIZE) {
+            level++;
+        }
+        long slotTick = deadlineTick >>> (WHEEL_BITS * level);
+        long maxSlotTick = (currentTick >>> (WHEEL_BITS * level)) + WHEEL_SIZE - 1;
+        // beyond the top level: park it in the furthest slot, it is re-inserted when that slot cascades
+        wheels[level][(int) Math.min(slotTick, maxSlotTick) & WHEEL_MASK].add(node);
+        pending++;
+    }
+
+    /**
+     * Unlinks the entry. Returns false if it is not in one of this wheel's slots.
+     */
+    public boolean remove(T node) {
+        Bucket<T> bucket = node.bucket;
+        if (bucket == null || bucket.wheel != this) {
+            return false;
+        }
+        bucket.remove(node);
+        pending--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel on to {@code targetTick}, handing every entry whose tick is passed to {@code expired}
+     * in tick order. {@code expired} may insert entries again.
+     */
+    public void advanceTo(long targetTick, Consumer<T> expired) {
+        while (currentTick < targetTick) {
+            if (pending == 0) {
+                // nothing to expire on the way, jump straight to the target
+                currentTick = targetTick;
+                return;
+            }
+            advance(expired);
+        }
+    }
+
+    public long currentTick() {
+        return currentTick;
+    }
+
+    // entries linked into a slot
+    public int pending() {
+        return pending;
+    }
+
+    private void advance(Consumer<T> expired) {
+        long tick = ++currentTick;
+        // cascade top-down so entries moved into a lower slot that is due right now are cascaded again
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                Bucket<T> bucket = wheels[level][(int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK];
+                T node;
+                while ((node = bucket.poll()) != null) {
+                    pending--;
+                    insert(node, Math.max(tick, node.deadlineTick));
+                }
+            }
+        }
+        Bucket<T> due = wheels[0][(int) tick & WHEEL_MASK];
+        T node;
+        while ((node = due.poll()) != null) {
+            pending--;
+            expired.accept(node);
+        }
+    }
+
+    /**
+     * The intrusive list links an entry carries; an entry is in at most one slot or {@link Bucket} at a time.
+     */
+    public abstract static class Node<T extends Node<T>> {
+        T prev;
+        T next;
+        Bucket<T> bucket;
+        long deadlineTick;
+    }
+
+    /**
+     * A doubly linked FIFO list of entries, also usable on its own to hold entries outside the wheel.
+     */
+    public static final class Bucket<T extends Node<T>> {
+        // the wheel whose slot this is, null for a standalone list
+        private final HierarchicalWheel<T> wheel;
+        private T head;
+        private T tail;
+
+        public Bucket() {
+            this(null);
+        }
+
+        private Bucket(HierarchicalWheel<T> wheel) {
+            this.wheel = wheel;
+        }
+
+        public void add(T node) {
+            node.bucket = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        /**
+         * Unlinks the entry. Returns false if it is not in this list.
+         */
+        public boolean remove(T node) {
+            if (node.bucket != this) {
+                return false;
+            }
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.bucket = null;
+            return true;
+        }
+
+        public T poll() {
+            T node = head;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        public boolean isEmpty() {
+            return head == null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package Timing;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of wait times in nanoseconds, in the style of HdrHistogram: every power of two is
+ * split into {@value #SUB_BUCKETS} linear buckets, so any recorded value is reported within 12.5% across
+ * the whole range of a long, in a fixed 496-slot array.
+ * <p>
+ * Every bucket is its own {@link LongAdder}, so threads recording into the same bucket at once spread over
+ * striped cells instead of retrying a CAS on one shared word; the cells are summed when the histogram is read.
+ * An adder is only created the first time its bucket is hit, since most histograms see a handful of buckets.
+ */
+public class WaitTimeHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(LongAdder[].class);
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int index = index(value);
+        LongAdder adder = bucket(index);
+        if (adder == null) {
+            LongAdder created = new LongAdder();
+            // whoever loses the race counts into the winner's adder
+            adder = (LongAdder) COUNTS.compareAndExchangeRelease(counts, index, null, created);
+            if (adder == null) {
+                adder = created;
+            }
+        }
+        adder.increment();
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += sum(i);
+        }
+        return count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile (0-100), or 0 if nothing was recorded.
+     */
+    public long valueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = sum(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(getMax(), i + 1 < BUCKETS ? lowerBound(i + 1) - 1 : Long.MAX_VALUE);
+            }
+        }
+        return getMax();
+    }
+
+    private LongAdder bucket(int index) {
+        return (LongAdder) COUNTS.getAcquire(counts, index);
+    }
+
+    private long sum(int index) {
+        LongAdder adder = bucket(index);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        int group = index / SUB_BUCKETS;
+        int subBucket = index % SUB_BUCKETS;
+        if (group == 0) {
+            return subBucket;
+        }
+        int exponent = group + SUB_BUCKET_BITS - 1;
+        return (1L << exponent) | ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+    }
+}
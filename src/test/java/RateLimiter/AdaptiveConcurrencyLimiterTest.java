@@ -0,0 +1,127 @@
+package RateLimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+    // synthetic downstream: 20 requests run at the base latency, beyond that they queue and latency grows
+    private static final int CAPACITY = 20;
+    private static final long BASE_LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long ARRIVAL_INTERVAL = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long DURATION = TimeUnit.SECONDS.toNanos(10);
+    private static final long WARM_UP = TimeUnit.SECONDS.toNanos(2);
+
+    @Test
+    public void testLimitsInFlightAndReleases() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new AimdLimit(2, 1, 10, 0.5, 1, TimeUnit.SECONDS));
+        assertTrue(limiter.allowRequest());
+        assertTrue(limiter.allowRequest());
+        assertFalse(limiter.allowRequest(), "Only the initial limit may be in flight");
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(3, limiter.getLimit(), "A fast request under load raises the limit by one");
+        assertTrue(limiter.tryAcquire(2));
+
+        limiter.release(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, limiter.getLimit(), "A slow request halves the limit");
+        assertEquals(2, limiter.getInFlight());
+        assertFalse(limiter.allowRequest());
+        assertEquals(3, limiter.getMetrics().getAdmitted());
+        assertEquals(2, limiter.getMetrics().getRejected());
+    }
+
+    @Test
+    public void testAimdConvergesUnderOverload() {
+        Simulation simulation = simulate(new AdaptiveConcurrencyLimiter(
+                new AimdLimit(10, 1, 1000, 0.9, 15, TimeUnit.MILLISECONDS)));
+        assertConverged(simulation);
+    }
+
+    @Test
+    public void testGradientConvergesUnderOverload() {
+        Simulation simulation = simulate(new AdaptiveConcurrencyLimiter(
+                new GradientLimit(10, 1, 1000, 0.2, 1000)));
+        assertConverged(simulation);
+    }
+
+    @Test
+    public void testUnlimitedDownstreamCollapses() {
+        Simulation simulation = simulate(null);
+        assertTrue(simulation.averageLatency() > 10 * BASE_LATENCY,
+                "Without a limiter the offered load should drive latency up: " + simulation);
+    }
+
+    private static void assertConverged(Simulation simulation) {
+        assertTrue(simulation.averageLimit() > CAPACITY / 2.0 && simulation.averageLimit() < CAPACITY * 2,
+                "Limit should settle near the downstream capacity: " + simulation);
+        assertTrue(simulation.averageLatency() < 2 * BASE_LATENCY,
+                "Latency should stay close to the no-load latency: " + simulation);
+        double capacityPerSecond = CAPACITY * (double) TimeUnit.SECONDS.toNanos(1) / BASE_LATENCY;
+        assertTrue(simulation.throughput() > capacityPerSecond * 0.6,
+                "Most of the downstream capacity should be used: " + simulation);
+    }
+
+    /**
+     * Discrete event simulation on a virtual clock: a request arrives every {@link #ARRIVAL_INTERVAL}
+     * (five times what the downstream can serve) and its latency is fixed by the concurrency it starts at.
+     */
+    private static Simulation simulate(AdaptiveConcurrencyLimiter limiter) {
+        PriorityQueue<long[]> running = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        Simulation simulation = new Simulation();
+        for (long now = 0; now < DURATION; now += ARRIVAL_INTERVAL) {
+            while (!running.isEmpty() && running.peek()[0] <= now) {
+                long[] completed = running.poll();
+                if (limiter != null) {
+                    limiter.release(completed[1]);
+                }
+                if (now >= WARM_UP) {
+                    simulation.completed++;
+                    simulation.totalLatency += completed[1];
+                }
+            }
+            if (limiter != null && !limiter.allowRequest()) {
+                continue;
+            }
+            int concurrency = running.size() + 1;
+            long latency = (long) (BASE_LATENCY * Math.max(1.0, (double) concurrency / CAPACITY));
+            running.add(new long[]{now + latency, latency});
+            if (now >= WARM_UP && limiter != null) {
+                simulation.samples++;
+                simulation.totalLimit += limiter.getLimit();
+            }
+        }
+        return simulation;
+    }
+
+    private static class Simulation {
+        long completed;
+        long totalLatency;
+        long samples;
+        long totalLimit;
+
+        double averageLatency() {
+            return completed == 0 ? 0 : (double) totalLatency / completed;
+        }
+
+        double averageLimit() {
+            return samples == 0 ? 0 : (double) totalLimit / samples;
+        }
+
+        double throughput() {
+            return completed * (double) TimeUnit.SECONDS.toNanos(1) / (DURATION - WARM_UP);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("limit=%.1f latency=%.1fms throughput=%.0f/s",
+                    averageLimit(), averageLatency() / 1e6, throughput());
+        }
+    }
+}
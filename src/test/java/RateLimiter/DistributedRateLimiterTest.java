@@ -0,0 +1,93 @@
+package RateLimiter;
+
+import RateLimiter.store.InMemoryRateLimiterStore;
+import RateLimiter.store.MappedFileRateLimiterStore;
+import RateLimiter.store.RateLimiterStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DistributedRateLimiterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFixedWindowLimitIsSharedAcrossNodes() throws IOException {
+        Path file = tempDir.resolve("fixed");
+        try (MappedFileRateLimiterStore nodeA = new MappedFileRateLimiterStore(file, 64);
+             MappedFileRateLimiterStore nodeB = new MappedFileRateLimiterStore(file, 64)) {
+            RateLimiter limiterA = new DistributedFixedWindowRateLimiter(nodeA, "api", 100, 1, TimeUnit.HOURS, 10);
+            RateLimiter limiterB = new DistributedFixedWindowRateLimiter(nodeB, "api", 100, 1, TimeUnit.HOURS, 10);
+            assertEquals(100, drain(limiterA, limiterB), "Both nodes together should admit exactly the limit");
+        }
+    }
+
+    @Test
+    public void testTokenBucketLimitIsSharedAcrossNodes() {
+        RateLimiterStore store = new InMemoryRateLimiterStore();
+        RateLimiter limiterA = new DistributedTokenBucketRateLimiter(store, "api", 100, 1, 8);
+        RateLimiter limiterB = new DistributedTokenBucketRateLimiter(store, "api", 100, 1, 8);
+        assertEquals(100, drain(limiterA, limiterB), "Both nodes together should admit exactly the capacity");
+    }
+
+    @Test
+    public void testBatchingReducesStoreCalls() {
+        CountingStore store = new CountingStore(new InMemoryRateLimiterStore());
+        RateLimiter limiter = new DistributedFixedWindowRateLimiter(store, "api", 1000, 1, TimeUnit.HOURS, 50);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.allowRequest());
+        }
+        assertEquals(20, store.calls, "1000 permits borrowed 50 at a time");
+    }
+
+    // alternates between nodes until neither admits anything
+    private int drain(RateLimiter first, RateLimiter second) {
+        int admitted = 0;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            if (first.allowRequest()) {
+                admitted++;
+                progress = true;
+            }
+            if (second.allowRequest()) {
+                admitted++;
+                progress = true;
+            }
+        }
+        return admitted;
+    }
+
+    private static class CountingStore implements RateLimiterStore {
+        private final RateLimiterStore delegate;
+        private int calls;
+
+        CountingStore(RateLimiterStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long get(String key) {
+            calls++;
+            return delegate.get(key);
+        }
+
+        @Override
+        public boolean compareAndSet(String key, long expect, long update, long ttlMillis) {
+            calls++;
+            return delegate.compareAndSet(key, expect, update, ttlMillis);
+        }
+
+        @Override
+        public long incrementAndGet(String key, long delta, long ttlMillis) {
+            calls++;
+            return delegate.incrementAndGet(key, delta, ttlMillis);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -11,6 +12,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -107,4 +109,66 @@ public class FixedWindowRateLimiterTest {
         assertEquals(5, allowed, "Only 5 requests should be allowed");
         assertEquals(5, rejected, "5 requests should be rejected");
     }
+
+    @Test
+    public void testAcquireAsyncCompletedByRollover() throws Exception {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(2, 300, TimeUnit.MILLISECONDS);
+        assertTrue(rateLimiter.acquireAsync().isDone());
+        assertTrue(rateLimiter.acquireAsync().isDone());
+
+        CompletableFuture<Permit> waiting = rateLimiter.acquireAsync();
+        assertFalse(waiting.isDone());
+        assertEquals(1, rateLimiter.getWaitingCount());
+
+        Permit permit = waiting.get(1, TimeUnit.SECONDS);
+        assertTrue(permit.waitTime() > 0);
+        assertEquals(0, rateLimiter.getWaitingCount());
+    }
+
+    @Test
+    public void testWaitingQueueIsBounded() {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(1, 10, TimeUnit.SECONDS, 1);
+        assertTrue(rateLimiter.acquireAsync().isDone());
+        assertFalse(rateLimiter.acquireAsync().isDone());
+
+        CompletableFuture<Permit> rejected = rateLimiter.acquireAsync();
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(e.getCause() instanceof RateLimitExceededException);
+    }
+
+    @Test
+    public void testTryAcquireTimesOut() throws InterruptedException {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(1, 10, TimeUnit.SECONDS);
+        assertTrue(rateLimiter.tryAcquire(10, TimeUnit.MILLISECONDS));
+        assertFalse(rateLimiter.tryAcquire(50, TimeUnit.MILLISECONDS));
+        assertEquals(0, rateLimiter.getWaitingCount(), "Timed out waiter should leave the queue");
+    }
+
+    @Test
+    public void testTryAcquireWaitsForNextWindow() throws InterruptedException {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(1, 200, TimeUnit.MILLISECONDS);
+        assertTrue(rateLimiter.allowRequest());
+        assertTrue(rateLimiter.tryAcquire(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBatchWaiterIsGrantedAsAWhole() throws Exception {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(5, 200, TimeUnit.MILLISECONDS);
+        assertTrue(rateLimiter.tryAcquire(4));
+        assertFalse(rateLimiter.tryAcquire(2));
+
+        CompletableFuture<Permit> batch = rateLimiter.acquireAsync(5);
+        assertFalse(batch.isDone());
+        assertFalse("Queued batch should not be overtaken", rateLimiter.allowRequest());
+        batch.get(1, TimeUnit.SECONDS);
+        assertFalse(rateLimiter.allowRequest());
+    }
+
+    @Test
+    public void testBatchDoesNotOverflowLargeLimit() {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(Integer.MAX_VALUE, 1, TimeUnit.HOURS, 0);
+        assertTrue(rateLimiter.tryAcquire(Integer.MAX_VALUE - 1));
+        assertFalse(rateLimiter.tryAcquire(2));
+        assertTrue(rateLimiter.allowRequest());
+    }
 }
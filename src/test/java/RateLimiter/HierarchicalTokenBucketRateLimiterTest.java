@@ -0,0 +1,55 @@
+package RateLimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HierarchicalTokenBucketRateLimiterTest {
+    private final AtomicLong clock = new AtomicLong(0);
+    private final HierarchicalTokenBucketRateLimiter rateLimiter = new HierarchicalTokenBucketRateLimiter(10, 10,
+            List.of(new PriorityClass("premium", 0.5, 0), new PriorityClass("free", 0.5, 1)), clock::get);
+
+    @Test
+    public void testNoisyClassCannotTakeGuaranteedShare() {
+        assertEquals(5, admitted("free", 100), "free gets its share and may not borrow into the reserve");
+        assertEquals(5, admitted("premium", 100), "premium keeps its guaranteed share");
+        assertEquals(0, admitted("free", 100));
+    }
+
+    @Test
+    public void testIdleCapacityIsBorrowed() {
+        assertEquals(10, admitted("premium", 100), "premium borrows the share free is not using");
+        assertEquals(5, admitted("free", 100), "borrowing never eats into another class's guarantee");
+        assertEquals(0, admitted("premium", 100));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(5, admitted("premium", 100), "the parent pays back the debt before lending again");
+    }
+
+    @Test
+    public void testRefillAndMetrics() {
+        RateLimiter premium = rateLimiter.forClass("premium");
+        admitted("premium", 12);
+        assertEquals(10, premium.getMetrics().getAdmitted());
+        assertEquals(2, premium.getMetrics().getRejected());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(2, admitted("premium", 100), "one guaranteed token and one borrowed from the 10/s parent");
+        assertThrows(IllegalArgumentException.class, () -> rateLimiter.allowRequest("unknown"));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTokenBucketRateLimiter(10, 10,
+                List.of(new PriorityClass("a", 0.6, 0), new PriorityClass("b", 0.6, 1))));
+    }
+
+    private int admitted(String priorityClass, int requests) {
+        int admitted = 0;
+        for (int i = 0; i < requests; i++) {
+            if (rateLimiter.allowRequest(priorityClass)) admitted++;
+        }
+        return admitted;
+    }
+}
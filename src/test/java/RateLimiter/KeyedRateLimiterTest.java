@@ -0,0 +1,65 @@
+package RateLimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyedRateLimiterTest {
+
+    @Test
+    public void testKeysAreLimitedIndependently() {
+        AtomicLong clock = new AtomicLong(0);
+        KeyedRateLimiter<String> rateLimiter = new KeyedRateLimiter<>(KeyedRateLimiterType.FIXED_WINDOW,
+                2, 1, 10, TimeUnit.SECONDS, clock::get, false);
+        assertTrue(rateLimiter.allowRequest("tenant-a"));
+        assertTrue(rateLimiter.allowRequest("tenant-a"));
+        assertFalse(rateLimiter.allowRequest("tenant-a"), "3rd request for tenant-a should be rejected");
+        assertTrue(rateLimiter.allowRequest("tenant-b"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(rateLimiter.allowRequest("tenant-a"), "New window should reset tenant-a");
+    }
+
+    @Test
+    public void testTokenBucketKeys() {
+        AtomicLong clock = new AtomicLong(0);
+        KeyedRateLimiter<Integer> rateLimiter = new KeyedRateLimiter<>(KeyedRateLimiterType.TOKEN_BUCKET,
+                4, 1, 10, TimeUnit.SECONDS, clock::get, false);
+        RateLimiter forKey = rateLimiter.forKey(7);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(forKey.allowRequest());
+        }
+        assertFalse(forKey.allowRequest());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        assertTrue(forKey.allowRequest(), "One token should refill after a quarter window");
+        assertFalse(forKey.allowRequest());
+    }
+
+    @Test
+    public void testIdleKeysAreEvicted() {
+        AtomicLong clock = new AtomicLong(0);
+        KeyedRateLimiter<Integer> rateLimiter = new KeyedRateLimiter<>(KeyedRateLimiterType.FIXED_WINDOW,
+                1, 1, 5, TimeUnit.SECONDS, clock::get, false);
+        for (int i = 0; i < 100_000; i++) {
+            rateLimiter.allowRequest(i);
+        }
+        assertEquals(100_000, rateLimiter.size());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        rateLimiter.allowRequest(0);
+        rateLimiter.evictIdle();
+        assertEquals(100_000, rateLimiter.size(), "Keys within the ttl should be kept");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        rateLimiter.evictIdle();
+        assertEquals(1, rateLimiter.size(), "Only the recently used key should remain");
+        assertTrue(rateLimiter.allowRequest(0));
+        assertFalse(rateLimiter.allowRequest(0), "Evicted keys should come back with the normal limit");
+    }
+}
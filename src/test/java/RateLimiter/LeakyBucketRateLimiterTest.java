@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class LeakyBucketRateLimiterTest {
@@ -72,6 +73,38 @@ public class LeakyBucketRateLimiterTest {
         assertTrue(rateLimiter.allowRequest());
     }
 
+    @Test
+    public void testSubmitRunsCallerWork() throws Exception {
+        LeakyBucketRateLimiter rateLimiter = new LeakyBucketRateLimiter(5, 100);
+        CompletableFuture<String> result = rateLimiter.submit(() -> "done");
+        assertEquals("done", result.get(1, TimeUnit.SECONDS));
+        rateLimiter.close();
+    }
+
+    @Test
+    public void testSubmitRejectedWhenFull() {
+        LeakyBucketRateLimiter rateLimiter = new LeakyBucketRateLimiter(2, 10_000);
+        rateLimiter.submit(() -> 1);
+        rateLimiter.submit(() -> 2);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rateLimiter.submit(() -> 3).get());
+        assertInstanceOf(RateLimitExceededException.class, e.getCause());
+        rateLimiter.close();
+    }
+
+    @Test
+    public void testDrainRateMatchesConfiguredRate() throws InterruptedException {
+        // 200/s with 10ms ticks: each tick has to release 2 requests to keep up
+        LeakyBucketRateLimiter rateLimiter = new LeakyBucketRateLimiter(1000, 200, Runnable::run);
+        AtomicInteger completed = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.submit(completed::incrementAndGet);
+        }
+        Thread.sleep(1000);
+        int drained = completed.get();
+        assertTrue(drained >= 180 && drained <= 210, "Expected about 200 requests drained but got " + drained);
+        rateLimiter.close();
+    }
+
     public static void main(String[] args) throws InterruptedException {
         RateLimiter rateLimiter = new LeakyBucketRateLimiter(3, 1000);
         ExecutorService executor = Executors.newFixedThreadPool(10);
@@ -88,4 +121,10 @@ public class LeakyBucketRateLimiterTest {
         rateLimiter.allowRequest();
 
     }
+
+    @Test
+    public void testRejectsZeroRate() {
+        assertThrows(IllegalArgumentException.class, () -> new LeakyBucketRateLimiter(5, 0, Runnable::run));
+        assertThrows(IllegalArgumentException.class, () -> new LeakyBucketRateLimiter(5, -1, Runnable::run));
+    }
 }
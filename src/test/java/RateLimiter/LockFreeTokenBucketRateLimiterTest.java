@@ -0,0 +1,89 @@
+package RateLimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LockFreeTokenBucketRateLimiterTest {
+
+    @Test
+    public void testBurstUpToCapacity() {
+        AtomicLong clock = new AtomicLong(0);
+        RateLimiter rateLimiter = new LockFreeTokenBucketRateLimiter(5, 2, clock::get);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.allowRequest(), "Request " + i + " should be allowed");
+        }
+        assertFalse(rateLimiter.allowRequest(), "6th request should be rejected");
+    }
+
+    @Test
+    public void testRefill() {
+        AtomicLong clock = new AtomicLong(0);
+        LockFreeTokenBucketRateLimiter rateLimiter = new LockFreeTokenBucketRateLimiter(2, 2, clock::get);
+        assertTrue(rateLimiter.allowRequest());
+        assertTrue(rateLimiter.allowRequest());
+        assertFalse(rateLimiter.allowRequest());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(1, rateLimiter.availableTokens());
+        assertTrue(rateLimiter.allowRequest());
+        assertFalse(rateLimiter.allowRequest());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(2, rateLimiter.availableTokens(), "Bucket should not overfill");
+    }
+
+    @Test
+    public void testMultiThreadingNeverOverAdmits() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(0);
+        RateLimiter rateLimiter = new LockFreeTokenBucketRateLimiter(100, 1, clock::get);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(16);
+
+        for (int i = 0; i < 16; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (rateLimiter.allowRequest()) allowed.incrementAndGet();
+                }
+                latch.countDown();
+            });
+        }
+
+        latch.await();
+        executor.shutdown();
+        assertEquals(100, allowed.get(), "Only capacity requests should be allowed");
+    }
+
+    @Test
+    public void testTryAcquireBatch() {
+        AtomicLong clock = new AtomicLong(0);
+        RateLimiter rateLimiter = new LockFreeTokenBucketRateLimiter(10, 10, clock::get);
+        assertTrue(rateLimiter.tryAcquire(7));
+        assertFalse(rateLimiter.tryAcquire(4), "Only 3 tokens are left");
+        assertTrue(rateLimiter.tryAcquire(3));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(rateLimiter.tryAcquire(5));
+        assertThrows(IllegalArgumentException.class, () -> rateLimiter.tryAcquire(11));
+    }
+
+    @Test
+    public void testAcquireBlocksUntilRefill() throws InterruptedException {
+        RateLimiter rateLimiter = new LockFreeTokenBucketRateLimiter(4, 20);
+        assertTrue(rateLimiter.tryAcquire(4));
+        long start = System.nanoTime();
+        rateLimiter.acquire(2);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90), "2 tokens take 100ms to refill");
+    }
+}
@@ -0,0 +1,45 @@
+package RateLimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterMetricsTest {
+
+    @Test
+    public void testAdmittedAndRejectedCounts() {
+        RateLimiter rateLimiter = new SlidingWindowCounterRateLimiter(3, 60_000);
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.allowRequest();
+        }
+        RateLimiterMetrics metrics = rateLimiter.getMetrics();
+        assertEquals(3, metrics.getAdmitted());
+        assertEquals(2, metrics.getRejected());
+        assertEquals(0, metrics.getAvailable());
+    }
+
+    @Test
+    public void testQueuedWaitIsRecorded() throws Exception {
+        FixedWindowRateLimiter rateLimiter = new FixedWindowRateLimiter(1, 100, TimeUnit.MILLISECONDS);
+        rateLimiter.acquireAsync().get();
+        rateLimiter.acquireAsync().get(1, TimeUnit.SECONDS);
+
+        RateLimiterMetrics metrics = rateLimiter.getMetrics();
+        assertEquals(2, metrics.getAdmitted());
+        assertEquals(1, metrics.getQueued());
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(1, metrics.getWaitTime().getCount());
+        assertTrue(metrics.getWaitTime().getMax() > 0);
+        rateLimiter.close();
+    }
+
+    @Test
+    public void testTokenBucketAvailableTokens() {
+        RateLimiter rateLimiter = new TokenBucketRateLimiter(10, 1);
+        rateLimiter.tryAcquire(4);
+        assertEquals(6, rateLimiter.getMetrics().getAvailable());
+    }
+}
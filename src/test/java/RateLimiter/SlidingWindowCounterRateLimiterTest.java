@@ -0,0 +1,93 @@
+package RateLimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SlidingWindowCounterRateLimiterTest {
+
+    @Test
+    public void testExceedingLimit() {
+        AtomicLong clock = new AtomicLong(0);
+        RateLimiter rateLimiter = new SlidingWindowCounterRateLimiter(3, 1000, clock::get);
+        assertTrue(rateLimiter.allowRequest());
+        assertTrue(rateLimiter.allowRequest());
+        assertTrue(rateLimiter.allowRequest());
+        assertFalse(rateLimiter.allowRequest(), "4th request should be rejected");
+    }
+
+    @Test
+    public void testPreviousWindowIsWeighted() {
+        AtomicLong clock = new AtomicLong(0);
+        RateLimiter rateLimiter = new SlidingWindowCounterRateLimiter(4, 1000, clock::get);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(rateLimiter.allowRequest());
+        }
+        // half of the previous window still counts: 4 * 0.5 = 2 slots left
+        clock.set(1500);
+        assertTrue(rateLimiter.allowRequest());
+        assertTrue(rateLimiter.allowRequest());
+        assertFalse(rateLimiter.allowRequest());
+
+        // two windows later nothing is carried over
+        clock.set(3000);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(rateLimiter.allowRequest());
+        }
+    }
+
+    @Test
+    public void testMatchesExactModeForSteadyTraffic() {
+        AtomicLong clock = new AtomicLong(0);
+        RateLimiter exact = new SlidingWindowRateLimiter(100, 1000, clock::get);
+        RateLimiter counter = new SlidingWindowCounterRateLimiter(100, 1000, clock::get);
+        int exactAllowed = 0, counterAllowed = 0;
+        // 200 requests per second for 60 seconds against a limit of 100 per second
+        for (long t = 0; t < 60_000; t += 5) {
+            clock.set(t);
+            if (exact.allowRequest()) exactAllowed++;
+            if (counter.allowRequest()) counterAllowed++;
+        }
+        assertEquals(exactAllowed, counterAllowed, exactAllowed * 0.02, "Steady traffic should be within 2%");
+    }
+
+    @Test
+    public void testOverAdmitsWhenPreviousWindowWasBunchedAtItsEnd() {
+        AtomicLong clock = new AtomicLong(0);
+        RateLimiter exact = new SlidingWindowRateLimiter(10, 1000, clock::get);
+        RateLimiter counter = new SlidingWindowCounterRateLimiter(10, 1000, clock::get);
+        clock.set(900);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(exact.allowRequest());
+            assertTrue(counter.allowRequest());
+        }
+
+        // all 10 requests are still inside the rolling window, but the counter only sees 10 * 0.9 = 9
+        clock.set(1100);
+        assertFalse(exact.allowRequest(), "Exact mode should reject");
+        assertTrue(counter.allowRequest(), "Counter mode lets one extra request through");
+        assertFalse(counter.allowRequest());
+    }
+
+    @Test
+    public void testBatchIsAdmittedLikeSingleRequests() {
+        AtomicLong clock = new AtomicLong(0);
+        RateLimiter single = new SlidingWindowCounterRateLimiter(10, 1000, clock::get);
+        RateLimiter batch = new SlidingWindowCounterRateLimiter(10, 1000, clock::get);
+        clock.set(900);
+        assertTrue(single.tryAcquire(10));
+        assertTrue(batch.tryAcquire(10));
+
+        // the previous window weighs 10 * 0.85 = 8.5: two single requests start below the limit
+        clock.set(1150);
+        assertTrue(single.allowRequest());
+        assertTrue(single.allowRequest());
+        assertFalse(single.allowRequest());
+        assertTrue(batch.tryAcquire(2));
+        assertFalse(batch.allowRequest());
+    }
+}
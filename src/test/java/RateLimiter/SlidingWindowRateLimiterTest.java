@@ -63,4 +63,13 @@ public class SlidingWindowRateLimiterTest {
             assertTrue(result.get(), "All requests should be allowed");
         }
     }
+
+    @Test
+    public void testTryAcquireIsAllOrNothing() {
+        SlidingWindowRateLimiter rateLimiter = new SlidingWindowRateLimiter(5, 1000);
+        assertTrue(rateLimiter.tryAcquire(3));
+        assertFalse(rateLimiter.tryAcquire(3), "Only 2 permits are left");
+        assertTrue(rateLimiter.tryAcquire(2));
+        assertFalse(rateLimiter.allowRequest());
+    }
 }
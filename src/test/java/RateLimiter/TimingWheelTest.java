@@ -0,0 +1,83 @@
+package RateLimiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testTaskNeverFiresEarly() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        int[] delays = {0, 5, 63, 64, 65, 130, 4100};
+        CountDownLatch latch = new CountDownLatch(delays.length);
+        AtomicInteger early = new AtomicInteger();
+        for (int delay : delays) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            wheel.schedule(() -> {
+                if (System.nanoTime() < deadline) early.incrementAndGet();
+                latch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Every task should fire, including cascaded ones");
+        assertEquals(0, early.get());
+        wheel.shutdown();
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        AtomicInteger fired = new AtomicInteger();
+        Timeout cancelled = wheel.schedule(fired::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        Timeout kept = wheel.schedule(fired::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel(), "Second cancel should be a no-op");
+
+        Thread.sleep(200);
+        assertEquals(1, fired.get());
+        assertFalse(kept.cancel(), "Cancelling an expired task should fail");
+        wheel.shutdown();
+    }
+
+    @Test
+    public void testFixedRate() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+        AtomicInteger fired = new AtomicInteger();
+        Timeout timeout = wheel.scheduleAtFixedRate(fired::incrementAndGet, 20, 20, TimeUnit.MILLISECONDS);
+        Thread.sleep(210);
+        timeout.cancel();
+        int count = fired.get();
+        assertTrue(count >= 8 && count <= 11, "Expected about 10 runs but got " + count);
+        Thread.sleep(60);
+        assertEquals(count, fired.get(), "Cancelled periodic task should stop");
+        wheel.shutdown();
+    }
+
+    @Test
+    public void testManyLimitersDoNotAddThreads() {
+        // make sure the shared wheel thread already exists
+        new FixedWindowRateLimiter(1, 1, TimeUnit.SECONDS).close();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        List<FixedWindowRateLimiter> fixed = new ArrayList<>();
+        List<LeakyBucketRateLimiter> leaky = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            fixed.add(new FixedWindowRateLimiter(10, 1, TimeUnit.SECONDS));
+            leaky.add(new LeakyBucketRateLimiter(10, 1000));
+        }
+        int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+        fixed.forEach(FixedWindowRateLimiter::close);
+        leaky.forEach(LeakyBucketRateLimiter::close);
+
+        assertTrue(threadsAfter <= threadsBefore + 1, "Thread count went from " + threadsBefore + " to " + threadsAfter);
+    }
+}
@@ -0,0 +1,107 @@
+package RateLimiter.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterStoreTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testInMemoryStore() throws InterruptedException {
+        checkStore(new InMemoryRateLimiterStore());
+    }
+
+    @Test
+    public void testMappedFileStore() throws IOException, InterruptedException {
+        try (MappedFileRateLimiterStore store = new MappedFileRateLimiterStore(tempDir.resolve("limits"), 64)) {
+            checkStore(store);
+        }
+    }
+
+    @Test
+    public void testMappedFileStoreIsSharedBetweenMappings() throws IOException {
+        Path file = tempDir.resolve("shared");
+        try (MappedFileRateLimiterStore first = new MappedFileRateLimiterStore(file, 64);
+             MappedFileRateLimiterStore second = new MappedFileRateLimiterStore(file, 64)) {
+            first.incrementAndGet("api", 3, 10_000);
+            assertEquals(5, second.incrementAndGet("api", 2, 10_000));
+            assertTrue(second.compareAndSet("other", 0, 42, 10_000));
+            assertEquals(42, first.get("other"));
+        }
+    }
+
+    @Test
+    public void testMappedFileStoreKeepsKeysApart() throws IOException {
+        try (MappedFileRateLimiterStore store = new MappedFileRateLimiterStore(tempDir.resolve("full"), 16)) {
+            for (int i = 0; i < 16; i++) {
+                store.incrementAndGet("key-" + i, i + 1, 10_000);
+            }
+            for (int i = 0; i < 16; i++) {
+                assertEquals(i + 1, store.get("key-" + i));
+            }
+            assertThrows(IllegalStateException.class, () -> store.get("one-too-many"));
+        }
+    }
+
+    @Test
+    public void testMappedFileStoreTellsCollidingKeysApart() throws IOException {
+        // every key collides on the primary hash, only the fingerprint tells them apart
+        try (MappedFileRateLimiterStore store = new MappedFileRateLimiterStore(tempDir.resolve("colliding"), 16, key -> 42)) {
+            assertEquals(3, store.incrementAndGet("first", 3, 10_000));
+            assertEquals(5, store.incrementAndGet("second", 5, 10_000));
+            assertTrue(store.compareAndSet("third", 0, 7, 10_000));
+            assertEquals(3, store.get("first"));
+            assertEquals(5, store.get("second"));
+            assertEquals(7, store.get("third"));
+        }
+    }
+
+    @Test
+    public void testMappedFileStoreTakesOverLockOfExitedProcess() throws Exception {
+        Path file = tempDir.resolve("abandoned");
+        try (MappedFileRateLimiterStore store = new MappedFileRateLimiterStore(file, 1)) {
+            store.incrementAndGet("api", 1, 10_000);
+        }
+        // a process that has exited leaves the slot locked behind it
+        Process process = new ProcessBuilder(ProcessHandle.current().info().command().orElseThrow(), "-version")
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        process.waitFor();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer lockWord = ByteBuffer.allocate(8).order(ByteOrder.nativeOrder()).putLong(0, process.pid());
+            channel.write(lockWord, 16 + 32);
+        }
+        try (MappedFileRateLimiterStore store = new MappedFileRateLimiterStore(file, 1)) {
+            assertEquals(2, store.incrementAndGet("api", 1, 10_000));
+        }
+    }
+
+    private void checkStore(RateLimiterStore store) throws InterruptedException {
+        assertEquals(0, store.get("missing"));
+
+        assertEquals(2, store.incrementAndGet("counter", 2, 10_000));
+        assertEquals(5, store.incrementAndGet("counter", 3, 10_000));
+
+        assertTrue(store.compareAndSet("cas", 0, 10, 10_000), "Absent key should compare as 0");
+        assertFalse(store.compareAndSet("cas", 0, 11, 10_000));
+        assertTrue(store.compareAndSet("cas", 10, 11, 10_000));
+        assertEquals(11, store.get("cas"));
+
+        store.incrementAndGet("short", 7, 50);
+        Thread.sleep(100);
+        assertEquals(0, store.get("short"), "Expired key should read as 0");
+        assertEquals(1, store.incrementAndGet("short", 1, 50), "Expired key should restart from 0");
+    }
+}
@@ -0,0 +1,103 @@
+package TaskScheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CronExpressionTest {
+    private static final long MINUTE = 60_000;
+
+    @Test
+    public void testMatchesMinuteByMinuteScan() {
+        Map<String, Predicate<LocalDateTime>> expressions = Map.of(
+                "*/5 * * * *", t -> t.getMinute() % 5 == 0,
+                "0 9 * * MON-FRI", t -> t.getMinute() == 0 && t.getHour() == 9 && t.getDayOfWeek().getValue() <= 5,
+                "30 23 31 * *", t -> t.getMinute() == 30 && t.getHour() == 23 && t.getDayOfMonth() == 31,
+                "0 0 29 2 *", t -> t.getMinute() == 0 && t.getHour() == 0 && t.getDayOfMonth() == 29 && t.getMonthValue() == 2,
+                "15 8-17/3 1,15 * 7", t -> t.getMinute() == 15 && t.getHour() >= 8 && t.getHour() <= 17 && t.getHour() % 3 == 2
+                        && (t.getDayOfMonth() == 1 || t.getDayOfMonth() == 15 || t.getDayOfWeek() == DayOfWeek.SUNDAY),
+                "@monthly", t -> t.getMinute() == 0 && t.getHour() == 0 && t.getDayOfMonth() == 1,
+                // with a stepped * a day has to match both day fields, as in Vixie cron
+                "0 0 */2 * MON", t -> t.getMinute() == 0 && t.getHour() == 0 && t.getDayOfMonth() % 2 == 1
+                        && t.getDayOfWeek() == DayOfWeek.MONDAY,
+                "0 6 1 * */2", t -> t.getMinute() == 0 && t.getHour() == 6 && t.getDayOfMonth() == 1
+                        && t.getDayOfWeek().getValue() % 7 % 2 == 0,
+                "0 12 * JUN-AUG SAT,SUN", t -> t.getMinute() == 0 && t.getHour() == 12 && t.getMonthValue() >= 6
+                        && t.getMonthValue() <= 8 && t.getDayOfWeek().getValue() >= 6);
+        ZoneOffset offset = ZoneOffset.ofHoursMinutes(5, 30);
+        SplittableRandom random = new SplittableRandom(3);
+        for (Map.Entry<String, Predicate<LocalDateTime>> entry : expressions.entrySet()) {
+            CronExpression cron = CronExpression.parse(entry.getKey(), offset);
+            for (int i = 0; i < 20; i++) {
+                long from = random.nextLong(4_000_000_000_000L);
+                long expected = scan(entry.getValue(), offset, from);
+                assertEquals(expected, cron.nextFireTime(from), entry.getKey() + " after " + Instant.ofEpochMilli(from));
+            }
+        }
+    }
+
+    @Test
+    public void testStarredDayFieldNeedsBothDaysToMatch() {
+        CronExpression cron = CronExpression.parse("0 0 */2 * MON", ZoneOffset.UTC);
+        // odd days that are Mondays: not the even-day Mondays 2024-01-08 and 01-22
+        long fire = cron.nextFireTime(LocalDateTime.of(2024, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli(), fire);
+        assertEquals(LocalDateTime.of(2024, 1, 29, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli(), cron.nextFireTime(fire));
+    }
+
+    @Test
+    public void testDaylightSavingTransitions() {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        CronExpression daily = CronExpression.parse("30 2 * * *", newYork);
+        // 2:30 does not exist on 2024-03-10 and fires when the clocks reach 3:00 EDT instead
+        long beforeGap = LocalDateTime.of(2024, 3, 10, 0, 0).atZone(newYork).toInstant().toEpochMilli();
+        assertEquals(LocalDateTime.of(2024, 3, 10, 3, 30).atZone(newYork).toInstant().toEpochMilli(), daily.nextFireTime(beforeGap));
+        // 2:30 is not repeated after 1:00-2:00 happens twice on 2024-11-03
+        long firstFire = daily.nextFireTime(LocalDateTime.of(2024, 11, 3, 0, 0).atZone(newYork).toInstant().toEpochMilli());
+        assertEquals(LocalDateTime.of(2024, 11, 3, 2, 30).atZone(newYork).toInstant().toEpochMilli(), firstFire);
+        assertEquals(firstFire + 24 * 60 * MINUTE, daily.nextFireTime(firstFire));
+    }
+
+    @Test
+    public void testRejectsInvalidExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 * FOO *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 17-9 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("0 0 30 2 *"));
+    }
+
+    @Test
+    public void testCronTaskFollowsItsCalendar() {
+        CronExpression everyFiveMinutes = CronExpression.parse("*/5 * * * *", ZoneOffset.UTC);
+        long fireTime = 10 * 5 * MINUTE;
+        long start = 1_000_000_000L;
+        ScheduledTask catchUp = new ScheduledTask(() -> { }, start, everyFiveMinutes, fireTime, MissedRunPolicy.CATCH_UP);
+        assertTrue(catchUp.isPeriodic());
+        assertEquals(start + 5 * MINUTE * 1_000_000, catchUp.nextExecutionTime(start));
+
+        ScheduledTask skip = new ScheduledTask(() -> { }, start, everyFiveMinutes, fireTime, MissedRunPolicy.SKIP);
+        // dispatched 12 minutes late: the fires at +5 and +10 are dropped
+        assertEquals(start + 15 * MINUTE * 1_000_000, skip.nextExecutionTime(start + 12 * MINUTE * 1_000_000));
+    }
+
+    // the first whole minute after `from` whose local time matches, found one minute at a time
+    private static long scan(Predicate<LocalDateTime> matches, ZoneOffset offset, long from) {
+        long minute = Math.floorDiv(from, MINUTE) + 1;
+        while (!matches.test(LocalDateTime.ofEpochSecond(minute * 60, 0, offset))) {
+            minute++;
+        }
+        return minute * MINUTE;
+    }
+}
@@ -0,0 +1,171 @@
+package TaskScheduler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DurableTaskSchedulorTest {
+    @TempDir
+    Path dir;
+
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testPendingTasksSurviveRestart() throws Exception {
+        Path file = dir.resolve("tasks.log");
+        CountDownLatch soonRan = new CountDownLatch(1);
+        TaskRegistry registry = registry();
+        registry.register("soon", payload -> soonRan::countDown);
+
+        DurableTaskSchedulor scheduler = new DurableTaskSchedulor(new TaskSchedulor(1), registry, file);
+        scheduler.scheduleOnce(descriptor("remind", "later"), 1, TimeUnit.HOURS);
+        scheduler.scheduleAtFixedRate(descriptor("remind", "hourly"), 1, TimeUnit.HOURS, 1, MissedRunPolicy.SKIP);
+        scheduler.scheduleOnce(descriptor("remind", "cancelled"), 1, TimeUnit.HOURS).cancel();
+        scheduler.scheduleOnce(descriptor("soon", ""), 0, TimeUnit.MILLISECONDS);
+        scheduler.scheduleOnce(() -> ran.add("transient"), 1, TimeUnit.HOURS);
+        assertTrue(soonRan.await(1, TimeUnit.SECONDS));
+        // the one-shot task is removed from the log once it has run
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (scheduler.getDurableTaskCount() > 2 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(2, scheduler.getDurableTaskCount());
+        scheduler.shutdown();
+
+        DurableTaskSchedulor recovered = new DurableTaskSchedulor(new TaskSchedulor(1), registry, file);
+        assertEquals(2, recovered.getDurableTaskCount());
+        assertEquals(2, recovered.getQueueSize(), "Only the pending durable tasks are replayed");
+        recovered.shutdown();
+    }
+
+    @Test
+    public void testRejectedScheduleIsNotReplayed() throws Exception {
+        Path file = dir.resolve("tasks.log");
+        TaskRegistry registry = registry();
+        DurableTaskSchedulor scheduler = new DurableTaskSchedulor(new TaskSchedulor(1), registry, file);
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.scheduleAtFixedRate(descriptor("remind", "no period"), 0, TimeUnit.MILLISECONDS, 0, MissedRunPolicy.SKIP));
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.scheduleOnce(descriptor("remind", "negative"), -1, TimeUnit.MILLISECONDS));
+        assertEquals(0, scheduler.getDurableTaskCount());
+        scheduler.shutdown();
+
+        DurableTaskSchedulor recovered = new DurableTaskSchedulor(new TaskSchedulor(1), registry, file);
+        assertEquals(0, recovered.getDurableTaskCount());
+        Thread.sleep(50);
+        assertEquals(List.of(), ran, "A rejected schedule must not run after a restart");
+        recovered.shutdown();
+    }
+
+    @Test
+    public void testOverdueTaskRunsOnRecovery() throws Exception {
+        Path file = dir.resolve("tasks.log");
+        try (TaskLog log = new TaskLog(file, 4096)) {
+            log.appendSchedule(descriptor("remind", "overdue"), System.currentTimeMillis() - 1000, 0, false, MissedRunPolicy.CATCH_UP);
+        }
+        TaskRegistry registry = registry();
+        DurableTaskSchedulor scheduler = new DurableTaskSchedulor(new TaskSchedulor(1), registry, file);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (scheduler.getDurableTaskCount() > 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(List.of("overdue"), ran);
+        assertEquals(0, scheduler.getDurableTaskCount());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        Path file = dir.resolve("tasks.log");
+        try (TaskLog log = new TaskLog(file, 4096)) {
+            for (int i = 0; i < 3_000; i++) {
+                log.appendSchedule(descriptor("remind", "task-" + i), i, 0, false, MissedRunPolicy.CATCH_UP);
+            }
+            long grown = Files.size(file);
+            for (long id = 1; id <= 2_900; id++) {
+                log.appendRemove(id);
+            }
+            assertTrue(log.needsCompaction());
+            assertEquals(grown, Files.size(file), "Removing must not compact inline");
+            log.compact();
+            assertFalse(log.needsCompaction());
+            assertTrue(Files.size(file) < grown, "Removed records should have been compacted away");
+        }
+        try (TaskLog log = new TaskLog(file, 4096)) {
+            assertEquals(100, log.size());
+            assertTrue(log.appendSchedule(descriptor("remind", "next"), 0, 0, false, MissedRunPolicy.CATCH_UP) > 3_000,
+                    "Ids must not be reused after a restart");
+        }
+    }
+
+    @Test
+    public void testFailedCompactionLeavesLogIntact() throws IOException {
+        Path file = dir.resolve("tasks.log");
+        // the compacted file cannot be created where a directory is in the way
+        Files.createDirectory(dir.resolve("tasks.log.compact"));
+        try (TaskLog log = new TaskLog(file, 4096)) {
+            for (int i = 0; i < 3_000; i++) {
+                log.appendSchedule(descriptor("remind", "task-" + i), i, 0, false, MissedRunPolicy.CATCH_UP);
+            }
+            for (long id = 1; id <= 2_900; id++) {
+                log.appendRemove(id);
+            }
+            assertThrows(UncheckedIOException.class, log::compact);
+            log.appendSchedule(descriptor("remind", "after"), 0, 0, false, MissedRunPolicy.CATCH_UP);
+        }
+        try (TaskLog log = new TaskLog(file, 4096)) {
+            assertEquals(101, log.size(), "Appends after the failed compaction must reach the real log");
+        }
+    }
+
+    @Test
+    public void testCompactsInBackgroundAndKeepsUnregisteredEntries() throws Exception {
+        Path file = dir.resolve("tasks.log");
+        try (TaskLog log = new TaskLog(file, 4096)) {
+            log.appendSchedule(descriptor("retired", ""), System.currentTimeMillis() + 60_000, 0, false, MissedRunPolicy.CATCH_UP);
+        }
+        DurableTaskSchedulor scheduler = new DurableTaskSchedulor(new TaskSchedulor(1), registry(), file);
+        assertEquals(List.of("retired"), scheduler.getUnrecoveredEntries().stream().map(e -> e.descriptor().name()).toList());
+        List<ScheduledTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            tasks.add(scheduler.scheduleOnce(descriptor("remind", "task-" + i), 1, TimeUnit.HOURS));
+        }
+        long grown = Files.size(file);
+        tasks.forEach(ScheduledTask::cancel);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.size(file) >= grown && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(Files.size(file) < grown, "The log should have been compacted in the background");
+        scheduler.shutdown();
+
+        try (TaskLog log = new TaskLog(file, 4096)) {
+            assertEquals(1, log.size(), "The unregistered entry stays in the log");
+        }
+    }
+
+    private TaskRegistry registry() {
+        TaskRegistry registry = new TaskRegistry();
+        registry.register("remind", payload -> () -> ran.add(new String(payload, StandardCharsets.UTF_8)));
+        return registry;
+    }
+
+    private static TaskDescriptor descriptor(String name, String payload) {
+        return new TaskDescriptor(name, payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
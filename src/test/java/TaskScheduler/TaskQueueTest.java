@@ -0,0 +1,154 @@
+package TaskScheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskQueueTest {
+    private static final long START = 1_000_000;
+
+    @Test
+    public void testHeapPollsInDeadlineOrder() {
+        assertPollsInDeadlineOrder(new HeapTaskQueue());
+    }
+
+    @Test
+    public void testTimingWheelPollsInDeadlineOrder() {
+        assertPollsInDeadlineOrder(new TimingWheelTaskQueue(1, TimeUnit.MILLISECONDS, START));
+    }
+
+    @Test
+    public void testHeapRemove() {
+        assertRemove(new HeapTaskQueue());
+    }
+
+    @Test
+    public void testTimingWheelRemove() {
+        assertRemove(new TimingWheelTaskQueue(1, TimeUnit.MILLISECONDS, START));
+    }
+
+    @Test
+    public void testHeapRemoveKeepsOrder() {
+        HeapTaskQueue queue = new HeapTaskQueue();
+        SplittableRandom random = new SplittableRandom(7);
+        List<ScheduledTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            ScheduledTask task = task(START + ms(random.nextLong(10_000)));
+            tasks.add(task);
+            queue.add(task);
+        }
+        for (int i = 0; i < tasks.size(); i += 2) {
+            assertTrue(queue.remove(tasks.get(i)));
+        }
+        assertEquals(500, queue.size());
+        long previous = Long.MIN_VALUE;
+        ScheduledTask task;
+        while ((task = queue.pollDue(Long.MAX_VALUE)) != null) {
+            assertTrue(task.getExecutionTime() >= previous, "Heap order broken after removals");
+            assertEquals(1, tasks.indexOf(task) % 2, "A removed task was polled");
+            previous = task.getExecutionTime();
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testHeapAddAllKeepsOrder() {
+        SplittableRandom random = new SplittableRandom(11);
+        // a batch larger than the queue is heapified, a small batch into a large queue is sifted in
+        for (int[] sizes : new int[][]{{10, 1_000}, {1_000, 10}}) {
+            HeapTaskQueue queue = new HeapTaskQueue();
+            for (int i = 0; i < sizes[0]; i++) {
+                queue.add(task(START + ms(random.nextLong(10_000))));
+            }
+            List<ScheduledTask> batch = new ArrayList<>();
+            for (int i = 0; i < sizes[1]; i++) {
+                batch.add(task(START + ms(random.nextLong(10_000))));
+            }
+            queue.addAll(batch);
+            assertTrue(queue.remove(batch.get(batch.size() / 2)), "Batch tasks must be indexed for removal");
+            assertEquals(sizes[0] + sizes[1] - 1, queue.size());
+            long previous = Long.MIN_VALUE;
+            ScheduledTask task;
+            while ((task = queue.pollDue(Long.MAX_VALUE)) != null) {
+                assertTrue(task.getExecutionTime() >= previous, "Heap order broken after addAll");
+                previous = task.getExecutionTime();
+            }
+        }
+    }
+
+    @Test
+    public void testTimingWheelCascadesFarDeadlines() {
+        TimingWheelTaskQueue queue = new TimingWheelTaskQueue(1, TimeUnit.MILLISECONDS, START);
+        // one per level, plus one beyond the span of the top level
+        long[] delays = {10, 1_000, 100_000, 10_000_000, 100_000_000};
+        for (long delay : delays) {
+            queue.add(task(START + ms(delay)));
+        }
+        for (long delay : delays) {
+            assertNull(queue.pollDue(START + ms(delay) - 1), "Nothing may fire before " + delay);
+            ScheduledTask task = queue.pollDue(START + ms(delay));
+            assertEquals(START + ms(delay), task.getExecutionTime());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testTimingWheelRoundsUpToTick() {
+        TimingWheelTaskQueue queue = new TimingWheelTaskQueue(10, TimeUnit.MILLISECONDS, START);
+        queue.add(task(START + ms(15)));
+        assertEquals(START + ms(10), queue.nextDeadline());
+        assertNull(queue.pollDue(START + ms(15)), "Fires on the first tick at or after its execution time");
+        assertEquals(START + ms(20), queue.nextDeadline());
+        assertEquals(START + ms(15), queue.pollDue(START + ms(20)).getExecutionTime());
+        assertEquals(Long.MAX_VALUE, queue.nextDeadline());
+    }
+
+    private static void assertPollsInDeadlineOrder(TaskQueue queue) {
+        long[] deadlines = {START + ms(50), START + ms(5), START + ms(300), START + ms(5_000), START + ms(1)};
+        for (long deadline : deadlines) {
+            queue.add(task(deadline));
+        }
+        assertEquals(5, queue.size());
+        assertNull(queue.pollDue(START));
+        List<Long> polled = new ArrayList<>();
+        for (long now = START; now <= START + ms(5_000); now += ms(1)) {
+            ScheduledTask task;
+            while ((task = queue.pollDue(now)) != null) {
+                assertTrue(task.getExecutionTime() <= now, "Polled before its execution time");
+                polled.add(task.getExecutionTime());
+            }
+        }
+        assertEquals(List.of(START + ms(1), START + ms(5), START + ms(50), START + ms(300), START + ms(5_000)), polled);
+        assertTrue(queue.isEmpty());
+    }
+
+    private static void assertRemove(TaskQueue queue) {
+        ScheduledTask kept = task(START + ms(10));
+        ScheduledTask removed = task(START + ms(5));
+        queue.add(kept);
+        queue.add(removed);
+        assertTrue(queue.remove(removed));
+        assertFalse(queue.remove(removed), "A task can only be removed once");
+        assertEquals(1, queue.size());
+        assertNull(queue.pollDue(START + ms(9)));
+        assertSame(kept, queue.pollDue(START + ms(10)));
+        assertFalse(queue.remove(kept), "A polled task is no longer queued");
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static ScheduledTask task(long executionTime) {
+        return new ScheduledTask(() -> { }, executionTime);
+    }
+}
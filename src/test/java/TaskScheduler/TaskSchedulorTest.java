@@ -0,0 +1,297 @@
+package TaskScheduler;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskSchedulorTest {
+
+    @Test
+    public void testHeapEngine() throws InterruptedException {
+        assertRunsAndCancels(new TaskSchedulor(2));
+    }
+
+    @Test
+    public void testTimingWheelEngine() throws InterruptedException {
+        assertRunsAndCancels(new TaskSchedulor(2, new TimingWheelTaskQueue(1, TimeUnit.MILLISECONDS)));
+    }
+
+    @Test
+    public void testFixedRateCatchesUpOnItsGrid() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(0);
+        TaskSchedulor scheduler = new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.PLATFORM_POOL, 1, clock::get);
+        Semaphore runs = new Semaphore(0);
+        ScheduledTask task = scheduler.scheduleAtFixedRate(runs::release, 0, TimeUnit.MILLISECONDS, 10);
+        assertTrue(runs.tryAcquire(1, 1, TimeUnit.SECONDS));
+        assertEquals(ms(10), task.getExecutionTime());
+
+        // 35ms later the 10, 20 and 30ms runs are due; they run back to back and the grid is kept
+        clock.set(ms(35));
+        scheduler.wakeUp();
+        assertTrue(runs.tryAcquire(3, 1, TimeUnit.SECONDS), "Every missed run should catch up");
+        assertEquals(ms(40), task.getExecutionTime(), "Next run stays on the original grid");
+        assertEquals(4, task.getLateness().getCount());
+        assertEquals(ms(25), task.getLateness().getMax(), "The 10ms run was 25ms late");
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testCatchUpRunsDoNotOverlap() throws InterruptedException {
+        assertCatchUpRunsDoNotOverlap(new TaskSchedulor(8));
+        assertCatchUpRunsDoNotOverlap(new ShardedTaskSchedulor(4, ShardPlacement.HASH));
+    }
+
+    @Test
+    public void testFixedRateSkipsMissedRuns() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(0);
+        TaskSchedulor scheduler = new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.PLATFORM_POOL, 1, clock::get);
+        Semaphore runs = new Semaphore(0);
+        ScheduledTask task = scheduler.scheduleAtFixedRate(runs::release, 0, TimeUnit.MILLISECONDS, 10, MissedRunPolicy.SKIP);
+        assertTrue(runs.tryAcquire(1, 1, TimeUnit.SECONDS));
+
+        clock.set(ms(35));
+        scheduler.wakeUp();
+        assertTrue(runs.tryAcquire(1, 1, TimeUnit.SECONDS));
+        assertEquals(ms(40), task.getExecutionTime(), "The 20 and 30ms runs are skipped");
+        assertEquals(2, scheduler.getLateness().getCount());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testPerTaskMetricsExportedToJmx() throws Exception {
+        AtomicLong clock = new AtomicLong(0);
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        TaskSchedulor scheduler = new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.PLATFORM_POOL, 1,
+                new JmxMetricsSink("test", server), clock::get);
+        Semaphore runs = new Semaphore(0);
+        scheduler.scheduleOnce(new NamedTask("report", () -> clock.addAndGet(ms(3))), 10, TimeUnit.MILLISECONDS);
+        scheduler.scheduleOnce(() -> { }, 1, TimeUnit.HOURS);
+        assertTrue(scheduler.getMetrics().getTasks().containsKey(TaskSchedulorTest.class.getName()), "A lambda is named after its class");
+
+        clock.set(ms(12));
+        scheduler.wakeUp();
+        AtomicInteger pollRuns = new AtomicInteger();
+        // the first run takes 15ms of a 10ms period and is still going when the next one is due
+        scheduler.scheduleAtFixedRate(new NamedTask("poll", () -> {
+            if (pollRuns.getAndIncrement() == 0) {
+                clock.addAndGet(ms(15));
+            }
+            runs.release();
+        }), 0, TimeUnit.MILLISECONDS, 10);
+        assertTrue(runs.tryAcquire(1, TimeUnit.SECONDS));
+
+        ObjectName report = new ObjectName("TaskScheduler:type=Task,scheduler=\"test\",name=\"report\"");
+        assertEquals(1L, server.getAttribute(report, "Runs"));
+        assertEquals(ms(2), server.getAttribute(report, "LatenessMaxNanos"));
+        assertEquals(ms(3), server.getAttribute(report, "DurationMaxNanos"));
+        ObjectName schedulerBean = new ObjectName("TaskScheduler:type=Scheduler,name=\"test\"");
+        assertEquals(3, server.getAttribute(schedulerBean, "TaskNames"));
+        assertEquals(2L, server.getAttribute(schedulerBean, "PendingTasks"));
+
+        scheduler.shutdown();
+        assertEquals(1, scheduler.getMetrics().getTasks().get("poll").getOverruns());
+        assertTrue(server.queryNames(new ObjectName("TaskScheduler:*"), null).isEmpty(), "Beans are unregistered on shutdown");
+    }
+
+    @Test
+    public void testJmxSinkReportsBeansItCouldNotUnregister() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        JmxMetricsSink sink = new JmxMetricsSink("test", server);
+        TaskSchedulor scheduler = new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.PLATFORM_POOL, 1, sink);
+        scheduler.scheduleOnce(new NamedTask("report", () -> { }), 1, TimeUnit.HOURS);
+        ObjectName taskBean = new ObjectName("TaskScheduler:type=Task,scheduler=\"test\",name=\"report\"");
+        // somebody else took the bean away already
+        server.unregisterMBean(taskBean);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, scheduler::shutdown);
+        assertEquals(1, failure.getSuppressed().length);
+        assertTrue(server.queryNames(new ObjectName("TaskScheduler:*"), null).isEmpty(), "The other beans are still unregistered");
+    }
+
+    @Test
+    public void testScheduleAllDispatchesDueBatch() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(0);
+        TaskSchedulor scheduler = new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.PLATFORM_POOL, 4, clock::get);
+        CountDownLatch ran = new CountDownLatch(5_000);
+        List<TaskSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            specs.add(TaskSpec.once(ran::countDown, 1 + i % 10, TimeUnit.MILLISECONDS));
+        }
+        List<ScheduledTask> scheduled = scheduler.scheduleAll(specs);
+        assertEquals(5_000, scheduled.size());
+        assertEquals(5_000, scheduler.getQueueSize());
+        assertTrue(scheduled.get(1).cancel(), "Batch scheduled tasks can be cancelled");
+
+        clock.set(ms(10));
+        scheduler.wakeUp();
+        ran.await(1, TimeUnit.SECONDS);
+        assertEquals(1, ran.getCount(), "Everything but the cancelled task runs");
+        assertEquals(0, scheduler.getQueueSize());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testShardedScheduleAll() throws InterruptedException {
+        ShardedTaskSchedulor scheduler = new ShardedTaskSchedulor(4, ShardPlacement.HASH);
+        CountDownLatch ran = new CountDownLatch(1_000);
+        List<TaskSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            specs.add(TaskSpec.once(ran::countDown, 0, TimeUnit.MILLISECONDS));
+        }
+        scheduler.scheduleAll(specs);
+        assertTrue(ran.await(1, TimeUnit.SECONDS));
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testVirtualThreads() throws InterruptedException {
+        assertRunsAndCancels(new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.VIRTUAL_THREADS, 0));
+    }
+
+    @Test
+    public void testVirtualThreadConcurrencyCap() throws InterruptedException {
+        TaskSchedulor scheduler = new TaskSchedulor(new HeapTaskQueue(), ExecutionMode.VIRTUAL_THREADS, 5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            scheduler.scheduleOnce(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            }, 0, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS), "Every blocking task should run");
+        assertTrue(maxRunning.get() <= 5, "At most 5 tasks may run at once, saw " + maxRunning.get());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testShardedByHash() throws InterruptedException {
+        assertRunsAndCancels(new ShardedTaskSchedulor(4, ShardPlacement.HASH));
+    }
+
+    @Test
+    public void testShardedBySubmitter() throws InterruptedException {
+        assertRunsAndCancels(new ShardedTaskSchedulor(4, ShardPlacement.SUBMITTER));
+    }
+
+    @Test
+    public void testIdleWorkerStealsFromBusyShard() throws InterruptedException {
+        // every task lands on the submitter's shard; the first one blocks its worker
+        ShardedTaskSchedulor scheduler = new ShardedTaskSchedulor(2, ShardPlacement.SUBMITTER);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch ran = new CountDownLatch(10);
+        scheduler.scheduleOnce(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+        Thread.sleep(20);
+        for (int i = 0; i < 10; i++) {
+            scheduler.scheduleOnce(ran::countDown, 5, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(ran.await(1, TimeUnit.SECONDS), "The idle worker should steal the due tasks");
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testShardedCountsFailedRuns() throws InterruptedException {
+        ShardedTaskSchedulor scheduler = new ShardedTaskSchedulor(1, ShardPlacement.HASH);
+        CountDownLatch ran = new CountDownLatch(1);
+        scheduler.scheduleOnce(new NamedTask("broken", () -> {
+            throw new IllegalStateException("boom");
+        }), 0, TimeUnit.MILLISECONDS);
+        scheduler.scheduleOnce(new NamedTask("after", ran::countDown), 5, TimeUnit.MILLISECONDS);
+        assertTrue(ran.await(1, TimeUnit.SECONDS), "The worker should carry on after a failed task");
+        scheduler.shutdown();
+
+        TaskMetrics broken = scheduler.getMetrics().getTasks().get("broken");
+        assertEquals(1, broken.getRuns());
+        assertEquals(1, broken.getFailures());
+        assertEquals(0, scheduler.getMetrics().getTasks().get("after").getFailures());
+    }
+
+    @Test
+    public void testCancelRemovesFromQueue() {
+        assertCancelRemovesFromQueue(new TaskSchedulor(1));
+        assertCancelRemovesFromQueue(new ShardedTaskSchedulor(2, ShardPlacement.HASH));
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    // every run takes six periods, so each one ends with several runs overdue
+    private static void assertCatchUpRunsDoNotOverlap(SchedulerInterface scheduler) throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch runs = new CountDownLatch(6);
+        ScheduledTask task = scheduler.scheduleAtFixedRate(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            runs.countDown();
+        }, 0, TimeUnit.MILLISECONDS, 5);
+        assertTrue(runs.await(5, TimeUnit.SECONDS), "Missed runs should catch up");
+        assertTrue(task.cancel(), "A running periodic task can be cancelled");
+        assertEquals(1, maxRunning.get(), "Runs of one task must not overlap");
+        scheduler.shutdown();
+    }
+
+    private static void assertCancelRemovesFromQueue(SchedulerInterface scheduler) {
+        ScheduledTask first = scheduler.scheduleOnce(() -> { }, 1, TimeUnit.HOURS);
+        ScheduledTask second = scheduler.scheduleAtFixedRate(() -> { }, 1, TimeUnit.HOURS, 1_000);
+        assertEquals(2, scheduler.getQueueSize());
+
+        assertTrue(first.cancel());
+        assertFalse(first.cancel(), "A task is only cancelled once");
+        assertTrue(second.cancel());
+        assertEquals(0, scheduler.getQueueSize(), "Cancelled tasks are removed eagerly");
+        assertEquals(2, scheduler.getCancelledCount());
+        scheduler.shutdown();
+    }
+
+    private static void assertRunsAndCancels(SchedulerInterface scheduler) throws InterruptedException {
+        CountDownLatch once = new CountDownLatch(1);
+        CountDownLatch periodic = new CountDownLatch(3);
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        scheduler.scheduleOnce(once::countDown, 20, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(periodic::countDown, 0, TimeUnit.MILLISECONDS, 10);
+        ScheduledTask cancelled = scheduler.scheduleOnce(cancelledRuns::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+
+        assertTrue(once.await(1, TimeUnit.SECONDS), "One-shot task should run");
+        assertTrue(periodic.await(1, TimeUnit.SECONDS), "Periodic task should keep running");
+        Thread.sleep(50);
+        assertEquals(0, cancelledRuns.get(), "Cancelled task must not run");
+        assertEquals(1, scheduler.getQueueSize(), "Only the periodic task is still pending");
+        scheduler.shutdown();
+    }
+}
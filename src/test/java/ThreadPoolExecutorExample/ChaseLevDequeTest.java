@@ -0,0 +1,71 @@
+package ThreadPoolExecutorExample;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+class ChaseLevDequeTest {
+
+    @Test
+    public void testOwnerPopsNewestAndThievesStealOldest() {
+        ChaseLevDeque deque = new ChaseLevDeque();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Runnable task = () -> { };
+            tasks.add(task);
+            deque.push(task);
+        }
+        Assertions.assertEquals(200, deque.size(), "The deque grows past its initial capacity");
+        Assertions.assertSame(tasks.get(199), deque.pop());
+        Assertions.assertSame(tasks.get(0), deque.steal());
+        Assertions.assertSame(tasks.get(198), deque.pop());
+        Assertions.assertSame(tasks.get(1), deque.steal());
+        Assertions.assertEquals(196, deque.size());
+    }
+
+    @Test
+    public void testEveryTaskIsTakenOnceUnderStealing() throws InterruptedException {
+        int total = 200_000;
+        ChaseLevDeque deque = new ChaseLevDeque();
+        AtomicIntegerArray taken = new AtomicIntegerArray(total);
+        AtomicBoolean ownerDone = new AtomicBoolean();
+        List<Thread> thieves = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            thieves.add(new Thread(() -> {
+                while (!ownerDone.get() || deque.size() > 0) {
+                    Runnable task = deque.steal();
+                    if (task != null) {
+                        task.run();
+                    }
+                }
+            }));
+        }
+        thieves.forEach(Thread::start);
+        // the owner pushes in bursts and pops some back, racing the thieves for the last tasks
+        for (int i = 0; i < total; i++) {
+            int id = i;
+            deque.push(() -> taken.incrementAndGet(id));
+            if (i % 3 == 0) {
+                Runnable task = deque.pop();
+                if (task != null) {
+                    task.run();
+                }
+            }
+        }
+        Runnable task;
+        while ((task = deque.pop()) != null) {
+            task.run();
+        }
+        ownerDone.set(true);
+        for (Thread thief : thieves) {
+            thief.join(10_000);
+        }
+        for (int i = 0; i < total; i++) {
+            Assertions.assertEquals(1, taken.get(i), "Task " + i);
+        }
+    }
+}
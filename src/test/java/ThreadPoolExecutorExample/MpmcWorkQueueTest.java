@@ -0,0 +1,92 @@
+package ThreadPoolExecutorExample;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class MpmcWorkQueueTest {
+
+    @Test
+    public void testFifoUpToCapacity() {
+        MpmcWorkQueue queue = new MpmcWorkQueue(3);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Runnable task = () -> { };
+            tasks.add(task);
+            Assertions.assertTrue(queue.offer(task), "Capacity is rounded up to 4");
+        }
+        Assertions.assertFalse(queue.offer(() -> { }));
+        Assertions.assertEquals(0, queue.remainingCapacity());
+        for (Runnable task : tasks) {
+            Assertions.assertSame(task, queue.poll());
+        }
+        Assertions.assertNull(queue.poll());
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testParkedTakeIsWokenBySubmit() throws InterruptedException {
+        MpmcWorkQueue queue = new MpmcWorkQueue(16);
+        AtomicReference<Runnable> taken = new AtomicReference<>();
+        Thread worker = new Thread(() -> {
+            try {
+                taken.set(queue.take());
+            } catch (InterruptedException ignored) {
+            }
+        });
+        worker.start();
+        Thread.sleep(50);
+        Runnable task = () -> { };
+        queue.offer(task);
+        worker.join(1000);
+        Assertions.assertSame(task, taken.get());
+        Assertions.assertNull(queue.poll(10, TimeUnit.MILLISECONDS), "Poll times out on an empty queue");
+    }
+
+    @Test
+    public void testConcurrentProducersAndConsumers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        MpmcWorkQueue queue = new MpmcWorkQueue(1024);
+        BitSet seen = new BitSet(producers * perProducer);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    int id = base + i;
+                    Runnable task = () -> {
+                        synchronized (seen) {
+                            Assertions.assertFalse(seen.get(id), "Task taken twice");
+                            seen.set(id);
+                        }
+                    };
+                    while (!queue.offer(task)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < 4; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    Runnable task;
+                    while ((task = queue.poll(200, TimeUnit.MILLISECONDS)) != null) {
+                        task.run();
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+        Assertions.assertEquals(producers * perProducer, seen.cardinality(), "Every task is taken exactly once");
+    }
+}
@@ -4,9 +4,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -60,6 +67,328 @@ class ThreadPoolExecutorExampleTest {
         Thread.sleep(10000);
     }
 
+    @Test
+    public void testHighThroughputModeRunsEveryTask() throws InterruptedException {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(4, 4, 1024, PoolMode.HIGH_THROUGHPUT);
+        CountDownLatch done = new CountDownLatch(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            while (true) {
+                try {
+                    pool.execute(done::countDown);
+                    break;
+                } catch (RejectQueueException e) {
+                    Thread.yield();
+                }
+            }
+        }
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testHighThroughputModeGrowsThenRejects() throws InterruptedException {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 2, 2, PoolMode.HIGH_THROUGHPUT);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        Runnable blocker = () -> {
+            started.countDown();
+            try { release.await(); } catch (InterruptedException ignored) {}
+        };
+        pool.execute(blocker);
+        Thread.sleep(100);
+        pool.execute(() -> { });
+        pool.execute(() -> { });
+        // the queue is full, so the next task starts the second worker directly
+        pool.execute(blocker);
+        Assertions.assertTrue(started.await(1, TimeUnit.SECONDS));
+        Assertions.assertThrows(RejectQueueException.class, () -> pool.execute(() -> { }));
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testWorkStealingRunsRecursiveFanOut() throws InterruptedException {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(4, 4, 64, PoolMode.WORK_STEALING);
+        // 2^16 leaves, far more than the inboxes hold: subtasks go to the submitting worker's own deque
+        CountDownLatch leaves = new CountDownLatch(1 << 16);
+        pool.execute(new FanOut(pool, 16, leaves));
+        Assertions.assertTrue(leaves.await(10, TimeUnit.SECONDS));
+        pool.shutdownNow();
+    }
+
+    private record FanOut(ThreadPoolExecutorExample pool, int depth, CountDownLatch leaves) implements Runnable {
+        @Override
+        public void run() {
+            if (depth == 0) {
+                leaves.countDown();
+                return;
+            }
+            pool.execute(new FanOut(pool, depth - 1, leaves));
+            pool.execute(new FanOut(pool, depth - 1, leaves));
+        }
+    }
+
+    @Test
+    public void testLoadStepRampsUpThenReapsIdleWorkers() throws InterruptedException {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 8, 10_000, PoolMode.HIGH_THROUGHPUT,
+                200, TimeUnit.MILLISECONDS);
+        QueueLatencyController controller = new QueueLatencyController(pool, 20, 10, TimeUnit.MILLISECONDS);
+        CountDownLatch done = new CountDownLatch(400);
+        for (int i = 0; i < 400; i++) {
+            pool.execute(() -> {
+                try { Thread.sleep(5); } catch (InterruptedException ignored) {}
+                done.countDown();
+            });
+        }
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        controller.close();
+        // the controller added a worker every tick while the backlog was over its target
+        Assertions.assertTrue(controller.getPeakPoolSize() >= 4, "peak pool size " + controller.getPeakPoolSize());
+
+        // the step is over: the extra workers idle past their keep-alive and retire
+        Assertions.assertTrue(awaitPoolSize(pool, 1, 2, TimeUnit.SECONDS), "pool size " + pool.getPoolSize());
+        Assertions.assertEquals(400, pool.getCompletedTaskCount());
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWorkStealingReapsAndRegrowsWorkers() throws InterruptedException {
+        // one work-stealing slot per maximum worker: a retired worker must hand its slot to the next one
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 4, 8, PoolMode.WORK_STEALING,
+                50, TimeUnit.MILLISECONDS);
+        for (int round = 0; round < 3; round++) {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(4);
+            Runnable blocker = () -> {
+                started.countDown();
+                try { release.await(); } catch (InterruptedException ignored) {}
+            };
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (started.getCount() > 0 && System.nanoTime() < deadline) {
+                try {
+                    pool.execute(blocker);
+                } catch (RejectQueueException e) {
+                    Thread.sleep(1);
+                }
+            }
+            Assertions.assertTrue(started.await(1, TimeUnit.SECONDS), "round " + round);
+            Assertions.assertEquals(4, pool.getPoolSize());
+            release.countDown();
+            Assertions.assertTrue(awaitPoolSize(pool, 1, 2, TimeUnit.SECONDS), "round " + round);
+        }
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    private static boolean awaitPoolSize(ThreadPoolExecutorExample pool, int size, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pool.getPoolSize() != size) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    @Test
+    public void testShutdownWakesIdleWorkers() throws InterruptedException {
+        for (PoolMode mode : PoolMode.values()) {
+            ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(2, 2, 10, mode);
+            CountDownLatch ran = new CountDownLatch(1);
+            pool.execute(ran::countDown);
+            Assertions.assertTrue(ran.await(1, TimeUnit.SECONDS));
+            Thread.sleep(50); // let both workers park on the empty queue
+
+            pool.shutdown();
+            Assertions.assertTrue(pool.awaitTermination(1, TimeUnit.SECONDS), mode + " workers still parked");
+        }
+    }
+
+    @Test
+    public void testShutdownLetsQueuedTasksFinish() throws InterruptedException {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 1, 10, PoolMode.HIGH_THROUGHPUT);
+        AtomicInteger counter = new AtomicInteger(0);
+        for (int i = 0; i < 5; i++) {
+            pool.execute(() -> {
+                try { Thread.sleep(20); } catch (InterruptedException ignored) {}
+                counter.incrementAndGet();
+            });
+        }
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(5, counter.get());
+    }
+
+    // a one worker pool whose worker is held by the returned latch and whose queue of 2 is full
+    private static CountDownLatch saturate(ThreadPoolExecutorExample pool) throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            try { release.await(); } catch (InterruptedException ignored) {}
+        });
+        Thread.sleep(50);
+        pool.execute(() -> { });
+        pool.execute(() -> { });
+        return release;
+    }
+
+    @Test
+    public void testCallerRunsPolicyRunsOnSubmitter() throws InterruptedException {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 1, 2, PoolMode.HIGH_THROUGHPUT);
+        pool.setRejectionPolicy(RejectionPolicy.CALLER_RUNS);
+        CountDownLatch release = saturate(pool);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        pool.execute(() -> ranOn.set(Thread.currentThread()));
+        Assertions.assertSame(Thread.currentThread(), ranOn.get());
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testBlockWithTimeoutPolicy() throws InterruptedException {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 1, 2, PoolMode.HIGH_THROUGHPUT);
+        pool.setRejectionPolicy(RejectionPolicy.blockWithTimeout(50, TimeUnit.MILLISECONDS));
+        CountDownLatch release = saturate(pool);
+        long start = System.nanoTime();
+        Assertions.assertThrows(RejectQueueException.class, () -> pool.execute(() -> { }));
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        // room frees up while the submitter waits
+        new Thread(() -> {
+            try { Thread.sleep(50); } catch (InterruptedException ignored) {}
+            release.countDown();
+        }).start();
+        CountDownLatch ran = new CountDownLatch(1);
+        pool.setRejectionPolicy(RejectionPolicy.blockWithTimeout(5, TimeUnit.SECONDS));
+        pool.execute(ran::countDown);
+        Assertions.assertTrue(ran.await(1, TimeUnit.SECONDS));
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testDropOldestPolicyKeepsNewestTasks() throws InterruptedException {
+        for (PoolMode mode : PoolMode.values()) {
+            ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 1, 2, mode);
+            pool.setRejectionPolicy(RejectionPolicy.DROP_OLDEST);
+            CountDownLatch release = new CountDownLatch(1);
+            pool.execute(() -> {
+                try { release.await(); } catch (InterruptedException ignored) {}
+            });
+            Thread.sleep(50);
+            List<Integer> ran = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                int task = i;
+                pool.execute(() -> ran.add(task));
+            }
+            release.countDown();
+            pool.shutdown();
+            Assertions.assertTrue(pool.awaitTermination(1, TimeUnit.SECONDS));
+            Assertions.assertEquals(List.of(3, 4), ran, mode.toString());
+        }
+    }
+
+    @Test
+    public void testRetryingPoliciesRespectAdmission() throws InterruptedException {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 1, 10, PoolMode.HIGH_THROUGHPUT);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> {
+            try { release.await(); } catch (InterruptedException ignored) {}
+        });
+        CountDownLatch queuedRan = new CountDownLatch(1);
+        pool.execute(queuedRan::countDown);
+        Thread.sleep(50);
+        // the queue has room, only admission says no
+        pool.setAdmissionPolicy(p -> false);
+
+        pool.setRejectionPolicy(RejectionPolicy.blockWithTimeout(20, TimeUnit.MILLISECONDS));
+        Assertions.assertThrows(RejectQueueException.class, () -> pool.execute(() -> { }));
+        pool.setRejectionPolicy(RejectionPolicy.DROP_OLDEST);
+        Assertions.assertThrows(RejectQueueException.class, () -> pool.execute(() -> { }));
+        Assertions.assertEquals(1, pool.getQueueLength(), "Nothing is queued past admission and nothing is dropped");
+
+        release.countDown();
+        Assertions.assertTrue(queuedRan.await(1, TimeUnit.SECONDS));
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testTrySubmitNeverThrows() throws Exception {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 1, 2, PoolMode.HIGH_THROUGHPUT);
+        pool.setRejectionPolicy(RejectionPolicy.CALLER_RUNS);
+        CountDownLatch release = saturate(pool);
+        CompletableFuture<Void> rejected = pool.trySubmit(() -> { });
+        Assertions.assertTrue(rejected.isCompletedExceptionally());
+        release.countDown();
+
+        Thread.sleep(50);
+        CompletableFuture<Void> failing = pool.trySubmit(() -> { throw new IllegalStateException("boom"); });
+        ExecutionException e = Assertions.assertThrows(ExecutionException.class, () -> failing.get(1, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(IllegalStateException.class, e.getCause());
+        Assertions.assertNull(pool.trySubmit(() -> { }).get(1, TimeUnit.SECONDS));
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testExecuteAfterShutdownIsRejected() {
+        for (PoolMode mode : PoolMode.values()) {
+            ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 1, 2, mode);
+            pool.setRejectionPolicy(RejectionPolicy.CALLER_RUNS);
+            pool.shutdown();
+            RejectQueueException e = Assertions.assertThrows(RejectQueueException.class, () -> pool.execute(() -> { }));
+            Assertions.assertEquals("Executor is shut down", e.getMessage());
+            Assertions.assertTrue(pool.trySubmit(() -> { }).isCompletedExceptionally());
+        }
+    }
+
+    @Test
+    public void testLatencySloAdmissionRejectsBeforeQueueIsFull() throws InterruptedException {
+        // one worker at 5ms a task: with a 20ms target about four tasks may wait
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 1, 1000, PoolMode.HIGH_THROUGHPUT);
+        pool.setAdmissionPolicy(new LatencySloAdmission(20, 10, TimeUnit.MILLISECONDS));
+        Runnable task = () -> {
+            try { Thread.sleep(5); } catch (InterruptedException ignored) {}
+        };
+        int rejected = 0;
+        int maxQueued = 0;
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+        while (System.nanoTime() < end) {
+            try {
+                pool.execute(task);
+            } catch (RejectQueueException e) {
+                rejected++;
+            }
+            maxQueued = Math.max(maxQueued, pool.getQueueLength());
+            Thread.sleep(1);
+        }
+        pool.shutdownNow();
+        Assertions.assertTrue(rejected > 0);
+        // the first window admits everything, after that the queue is held near the target
+        Assertions.assertTrue(maxQueued < 100, "max queued " + maxQueued);
+    }
+
+    @Test
+    public void testLatencySloAdmissionAdmitsBurstAfterIdle() throws InterruptedException {
+        ThreadPoolExecutorExample pool = new ThreadPoolExecutorExample(1, 1, 100, PoolMode.HIGH_THROUGHPUT);
+        pool.setAdmissionPolicy(new LatencySloAdmission(20, 10, TimeUnit.MILLISECONDS));
+        CountDownLatch warmedUp = new CountDownLatch(1);
+        pool.execute(warmedUp::countDown);
+        Assertions.assertTrue(warmedUp.await(1, TimeUnit.SECONDS));
+        Thread.sleep(200); // idle for twenty windows
+
+        // three waiting 2ms tasks are well within 20ms, the idle spell must not count against them
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            pool.execute(() -> {
+                try { Thread.sleep(2); } catch (InterruptedException ignored) {}
+                done.countDown();
+            });
+        }
+        Assertions.assertTrue(done.await(1, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
     @Test
     public void testShutdown() throws InterruptedException {
         AtomicInteger counter = new AtomicInteger(0);
@@ -0,0 +1,54 @@
+package Timing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WaitTimeHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        WaitTimeHistogram histogram = new WaitTimeHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getMax());
+        long p50 = histogram.valueAtPercentile(50);
+        long p99 = histogram.valueAtPercentile(99);
+        assertTrue(Math.abs(p50 - 500_000) <= 500_000 / 8, "p50 was " + p50);
+        assertTrue(Math.abs(p99 - 990_000) <= 990_000 / 8, "p99 was " + p99);
+    }
+
+    @Test
+    public void testCountsConcurrentRecords() throws InterruptedException {
+        WaitTimeHistogram histogram = new WaitTimeHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            // every thread hits the same bucket
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(1_000);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(1_000, histogram.getMax());
+    }
+
+    @Test
+    public void testBucketsAreContiguous() {
+        for (int index = 0; index < 400; index++) {
+            long lowerBound = WaitTimeHistogram.lowerBound(index);
+            assertEquals(index, WaitTimeHistogram.index(lowerBound));
+            assertEquals(index, WaitTimeHistogram.index(WaitTimeHistogram.lowerBound(index + 1) - 1));
+        }
+    }
+}